@@ -0,0 +1,48 @@
+package org.example.itbmshopbe.config;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.itbmshopbe.utils.JwtPrincipal;
+import org.example.itbmshopbe.utils.JwtTokenUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Verifies the bearer token once per request and publishes the {@link JwtPrincipal}
+ * to the SecurityContext. Requests with a missing or invalid token pass through
+ * unauthenticated; endpoints that need a user reject them through {@code Util}.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            try {
+                JwtPrincipal principal = JwtTokenUtil.getPrincipal(authHeader.substring(BEARER_PREFIX.length()));
+                List<SimpleGrantedAuthority> authorities = principal.role() == null
+                        ? List.of()
+                        : List.of(new SimpleGrantedAuthority("ROLE_" + principal.role().toUpperCase()));
+
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+                SecurityContextHolder.setContext(context);
+            } catch (JwtException | IllegalArgumentException ignored) {
+                // Left unauthenticated
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.itbmshopbe.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -7,8 +8,12 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -17,13 +22,27 @@ public class WebSecurityConfig {
    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
        http
                .csrf(csrf -> csrf.disable())
+               .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+               .addFilterBefore(new JwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
        return http.build();
    }
 
+    /**
+     * New hashes are stored as {@code {argon2}$argon2id$v=19$m=...,t=...,p=...$...}, so each
+     * hash carries the parameters it was made with. Hashes from before the prefix was
+     * introduced still verify through the legacy encoder and are reported as needing an upgrade.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-
-       return new Argon2PasswordEncoder(16, 32, 1, 1 << 13, 3);
+    public PasswordEncoder passwordEncoder(
+            @Value("${password.argon2.salt-length:16}") int saltLength,
+            @Value("${password.argon2.hash-length:32}") int hashLength,
+            @Value("${password.argon2.parallelism:1}") int parallelism,
+            @Value("${password.argon2.memory-kib:8192}") int memoryKib,
+            @Value("${password.argon2.iterations:3}") int iterations) {
+       Argon2PasswordEncoder current = new Argon2PasswordEncoder(saltLength, hashLength, parallelism, memoryKib, iterations);
+       DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("argon2", Map.of("argon2", current));
+       encoder.setDefaultPasswordEncoderForMatches(new Argon2PasswordEncoder(16, 32, 1, 1 << 13, 3));
+       return encoder;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.example.itbmshopbe.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.itbmshopbe.dtos.AccountDTO.LoginRequestDto;
@@ -31,12 +32,14 @@ public class AccountController {
     public ResponseEntity<UserResponseDto> registerAccount(
             @Valid @ModelAttribute RegisterRequestDto registerDto,
             @RequestParam(required = false) MultipartFile nationalCardPhotoFront,
-            @RequestParam(required = false) MultipartFile nationalCardPhotoBack
+            @RequestParam(required = false) MultipartFile nationalCardPhotoBack,
+            HttpServletRequest request
     ) {
         UserResponseDto createdAccount = accountService.registerAccount(
                 registerDto,
                 nationalCardPhotoFront,
-                nationalCardPhotoBack
+                nationalCardPhotoBack,
+                request.getRemoteAddr()
         );
         return ResponseEntity.status(HttpStatus.CREATED).body(createdAccount);
     }
@@ -48,8 +51,9 @@ public class AccountController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDto> Login(@Valid @RequestBody LoginRequestDto loginRequestDto) {
-        LoginResponseDto loginResponse = accountService.loginAccount(loginRequestDto);
+    public ResponseEntity<LoginResponseDto> Login(@Valid @RequestBody LoginRequestDto loginRequestDto,
+                                                  HttpServletRequest request) {
+        LoginResponseDto loginResponse = accountService.loginAccount(loginRequestDto, request.getRemoteAddr());
         return ResponseEntity.ok(loginResponse);
     }
 
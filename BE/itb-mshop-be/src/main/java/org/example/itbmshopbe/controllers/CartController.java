@@ -2,6 +2,7 @@ package org.example.itbmshopbe.controllers;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.example.itbmshopbe.dtos.CartDTO.CartBatchRequestDto;
 import org.example.itbmshopbe.dtos.CartDTO.CartRequestDto;
 import org.example.itbmshopbe.dtos.CartDTO.CartResponseDto;
 import org.example.itbmshopbe.services.CartService;
@@ -29,6 +30,16 @@ public class CartController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<CartResponseDto>> applyCartBatch(
+            @RequestBody CartBatchRequestDto batchRequestDto,
+            HttpServletRequest request
+    ) {
+        Integer userId = Util.validateAndGetUserId(request, batchRequestDto.getAccountId());
+        List<CartResponseDto> responseDtos = cartService.applyBatch(userId, batchRequestDto.getOperations());
+        return ResponseEntity.ok(responseDtos);
+    }
+
     @GetMapping
     public ResponseEntity<List<CartResponseDto>> getAllCartItems(
             @RequestParam Integer accountId,
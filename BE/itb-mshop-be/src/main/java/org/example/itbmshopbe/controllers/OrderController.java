@@ -1,5 +1,6 @@
 package org.example.itbmshopbe.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +8,7 @@ import org.example.itbmshopbe.dtos.OrderDTO.OrderRequestDto;
 import org.example.itbmshopbe.dtos.OrderDTO.OrderResponseDto;
 import org.example.itbmshopbe.dtos.OrderDTO.OrderSellerDetailDto;
 import org.example.itbmshopbe.dtos.OrderDTO.OrderSellerResponseDto;
+import org.example.itbmshopbe.services.IdempotencyService;
 import org.example.itbmshopbe.services.OrderService;
 import org.example.itbmshopbe.utils.Util;
 import org.springframework.http.HttpStatus;
@@ -21,14 +23,28 @@ import java.util.List;
 @CrossOrigin(origins = "${frontend.url}")
 public class OrderController {
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
     @PostMapping
     public ResponseEntity<List<OrderResponseDto<OrderSellerResponseDto>>> placeOrder(
             @Valid @RequestBody OrderRequestDto orderRequestDto,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             HttpServletRequest request
     ){
         Integer buyerId = Util.validateAndGetUserId(request, orderRequestDto.getBuyerId());
-        List<OrderResponseDto<OrderSellerResponseDto>> responseDto = orderService.createOrder(buyerId, orderRequestDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+        if (idempotencyKey == null) {
+            List<OrderResponseDto<OrderSellerResponseDto>> responseDto = orderService.createOrder(buyerId, orderRequestDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+        }
+        IdempotencyService.Result<List<OrderResponseDto<OrderSellerResponseDto>>> result = idempotencyService.execute(
+                buyerId,
+                idempotencyKey,
+                orderRequestDto,
+                new TypeReference<>() {},
+                () -> orderService.createOrder(buyerId, orderRequestDto)
+        );
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(result.body());
     }
 
     @GetMapping("/{id}")
@@ -1,5 +1,6 @@
 package org.example.itbmshopbe.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemDetailDto;
 import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemGalleryDto;
@@ -9,14 +10,20 @@ import org.example.itbmshopbe.exceptions.ItemNotFoundException;
 import org.example.itbmshopbe.services.FileService;
 import org.example.itbmshopbe.services.SaleItemPictureService;
 import org.example.itbmshopbe.services.SaleItemService;
+import org.example.itbmshopbe.utils.PictureSize;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -28,6 +35,14 @@ public class SaleItemController {
     private final SaleItemPictureService saleItemPictureService;
     private final FileService fileService;
 
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    @Value("${file.picture-max-age-seconds:300}")
+    private long pictureMaxAgeSeconds;
+
     @GetMapping("")
     public ResponseEntity<List<SaleItemGalleryDto>> getAllSaleItemsForGallery(){
         return ResponseEntity.ok(saleItemService.getAllSaleItemsForGallery());
@@ -90,11 +105,42 @@ public class SaleItemController {
     @GetMapping("/picture/{filename:.+}")
     @ResponseBody
     public ResponseEntity<Resource> serveFile(
-            @PathVariable String filename) {
-        Resource file = fileService.loadFileAsResource(filename);
-        return ResponseEntity.
-                ok()
-                .contentType(MediaType.
-                        IMAGE_JPEG).body(file);
+            @PathVariable String filename,
+            @RequestParam(required = false) String size,
+            ServletWebRequest webRequest) {
+        FileService.StoredFile file = fileService.loadStoredFile(filename, PictureSize.fromParam(size));
+        if (webRequest.checkNotModified(file.eTag(), file.lastModified())) {
+            return null;
+        }
+
+        CacheControl cacheControl;
+        if (file.fallback()) {
+            // The original stands in until the derivative is generated, so revalidate every time
+            cacheControl = CacheControl.noCache().cachePublic();
+        } else if (fileService.isBlobName(filename)) {
+            // Blob names are content digests, so the bytes behind a URL never change
+            cacheControl = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+        } else {
+            cacheControl = CacheControl.maxAge(Duration.ofSeconds(pictureMaxAgeSeconds)).cachePublic();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(file.mediaType())
+                .eTag(file.eTag())
+                .lastModified(file.lastModified())
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Let Tomcat write the whole file with sendfile(2) instead of copying it through the JVM.
+        // Range requests fall through to Spring, which answers them with 206 partial content.
+        HttpServletRequest request = webRequest.getRequest();
+        if (HttpMethod.GET.matches(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.path().toString());
+            request.setAttribute(SENDFILE_START_ATTR, 0L);
+            request.setAttribute(SENDFILE_END_ATTR, file.size());
+            return response.contentLength(file.size()).build();
+        }
+        return response.body(file.asResource());
     }
 }
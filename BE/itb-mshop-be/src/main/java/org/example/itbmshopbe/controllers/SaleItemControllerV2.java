@@ -42,6 +42,41 @@ public class SaleItemControllerV2 {
         return ResponseEntity.ok(responseDto);
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<SaleItemCursorResponseDto> scrollSaleItems(
+            @RequestParam(required = false) List<String> filterBrands,
+            @RequestParam(required = false) List<Integer> filterStorages,
+            @RequestParam(required = false) Integer filterPriceLower,
+            @RequestParam(required = false) Integer filterPriceUpper,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sortField,
+            @RequestParam(required = false) String sortDirection,
+            @RequestParam(required = false) String searchKeyword,
+            @RequestParam(required = false, defaultValue = "false") Boolean filterNullStorage
+    ) {
+        SaleItemCursorResponseDto responseDto = saleItemService.getSaleItemsByCursor(
+                null, filterBrands, filterStorages, filterPriceLower, filterPriceUpper, cursor, size,
+                sortField, sortDirection, filterNullStorage, searchKeyword
+        );
+        return ResponseEntity.ok(responseDto);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<SaleItemFacetsDto> getSaleItemFacets(
+            @RequestParam(required = false) List<String> filterBrands,
+            @RequestParam(required = false) List<Integer> filterStorages,
+            @RequestParam(required = false) Integer filterPriceLower,
+            @RequestParam(required = false) Integer filterPriceUpper,
+            @RequestParam(required = false) String searchKeyword,
+            @RequestParam(required = false, defaultValue = "false") Boolean filterNullStorage
+    ) {
+        return ResponseEntity.ok(saleItemService.getSaleItemFacets(
+                null, filterBrands, filterStorages, filterPriceLower, filterPriceUpper,
+                filterNullStorage, searchKeyword
+        ));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<SaleItemDetailWithImagesDto> getSaleItemById(@PathVariable Integer id) {
         return ResponseEntity.ok(saleItemService.getSaleItemDetailWithImages(id));
@@ -5,6 +5,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.itbmshopbe.dtos.OrderDTO.OrderSellerResponseDto;
 import org.example.itbmshopbe.dtos.OrderDTO.OrderSellerViewResponseDto;
+import org.example.itbmshopbe.dtos.OrderDTO.SellerStatsDto;
 import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemDetailDto;
 import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemDetailWithImagesDto;
 import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemPagedResponseDto;
@@ -12,16 +13,23 @@ import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemRequestDto;
 import org.example.itbmshopbe.entities.Account;
 import org.example.itbmshopbe.entities.Seller;
 import org.example.itbmshopbe.repositories.SellerRepository;
+import org.example.itbmshopbe.services.OrderExportService;
 import org.example.itbmshopbe.services.OrderService;
 import org.example.itbmshopbe.services.SaleItemPictureService;
 import org.example.itbmshopbe.services.SaleItemService;
+import org.example.itbmshopbe.services.SellerStatsService;
 import org.example.itbmshopbe.utils.Util;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +42,8 @@ public class SellerController {
     private final SaleItemPictureService saleItemPictureService;
     private final SellerRepository sellerRepository;
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final SellerStatsService sellerStatsService;
 
     @GetMapping("/{id}/sale-item")
     public ResponseEntity<SaleItemPagedResponseDto> getSellerSaleItem(
@@ -102,6 +112,35 @@ public class SellerController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{id}/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportSellerOrders(
+            @PathVariable Integer id,
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            HttpServletRequest request
+    ) {
+        Integer tokenUserId = Util.validateAndGetSellerUserId(request, id);
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromParam(format);
+        StreamingResponseBody body = orderExportService.exportSellerOrders(tokenUserId, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders-" + tokenUserId + "." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<SellerStatsDto> getSellerStats(
+            @PathVariable Integer id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request
+    ) {
+        Integer tokenUserId = Util.validateAndGetSellerUserId(request, id);
+        return ResponseEntity.ok(sellerStatsService.getSellerStats(tokenUserId, from, to));
+    }
+
     @DeleteMapping("/{id}/sale-item/{saleItemId}")
     public ResponseEntity<Void> deleteSellerSaleItem(
             @PathVariable Integer id,
@@ -0,0 +1,13 @@
+package org.example.itbmshopbe.dtos.CartDTO;
+
+import lombok.Data;
+
+@Data
+public class CartBatchOperationDto {
+    public enum Action { ADD, UPDATE, REMOVE }
+
+    private Action action;
+    private Integer saleItemId;
+    private Integer quantity;
+    private String note;
+}
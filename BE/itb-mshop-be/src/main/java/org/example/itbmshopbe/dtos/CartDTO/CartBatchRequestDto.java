@@ -0,0 +1,11 @@
+package org.example.itbmshopbe.dtos.CartDTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CartBatchRequestDto {
+    private Integer accountId;
+    private List<CartBatchOperationDto> operations;
+}
@@ -16,5 +16,7 @@ public class OrderResponseDto<T> {
     private String shippingAddress;
     private String orderNote;
     private List<OrderItemRequestDto> orderItems;
+    private Integer totalPrice;
+    private Integer itemCount;
     private String orderStatus;
 }
@@ -15,5 +15,7 @@ public class OrderSellerViewResponseDto {
     private String shippingAddress;
     private String orderNote;
     private List<OrderItemRequestDto> orderItems;
+    private Integer totalPrice;
+    private Integer itemCount;
     private String orderStatus;
 }
@@ -0,0 +1,35 @@
+package org.example.itbmshopbe.dtos.OrderDTO;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class SellerStatsDto {
+    private Integer sellerId;
+    private LocalDate from;
+    private LocalDate to;
+    private Long totalOrders;
+    private Long totalUnits;
+    private Long totalRevenue;
+    private List<DailyStats> days;
+    private List<ItemStats> items;
+
+    @Data
+    public static class DailyStats {
+        private LocalDate day;
+        private Integer orders;
+        private Integer units;
+        private Long revenue;
+    }
+
+    @Data
+    public static class ItemStats {
+        private Integer saleItemId;
+        private String description;
+        private Long orders;
+        private Long units;
+        private Long revenue;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.itbmshopbe.dtos.SaleItemDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleItemCursorResponseDto {
+    private List<SaleItemDetailDto> content;
+    private boolean last;
+    private int size;
+    private String sort;
+    private String nextCursor;
+}
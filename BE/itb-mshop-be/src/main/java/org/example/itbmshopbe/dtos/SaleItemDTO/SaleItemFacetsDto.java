@@ -0,0 +1,34 @@
+package org.example.itbmshopbe.dtos.SaleItemDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleItemFacetsDto {
+    private long totalElements;
+    private List<FacetBucket> brands;
+    private List<FacetBucket> storages;
+    private List<PriceBucket> priceRanges;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetBucket {
+        private String value;
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        private int min;
+        private int max;
+        private long count;
+    }
+}
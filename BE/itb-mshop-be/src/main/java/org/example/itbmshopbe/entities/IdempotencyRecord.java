@@ -0,0 +1,61 @@
+package org.example.itbmshopbe.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a request sent with an {@code Idempotency-Key} header. The row is claimed
+ * before the request runs and completed in the same transaction as the request's own
+ * writes, so a committed order always has its stored response next to it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_key", indexes = {
+        @Index(name = "idx_idempotency_key_expires", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+    // SHA-256 of account id + client key, so keys from different accounts never collide
+    @Id
+    @Size(max = 64)
+    @Column(name = "key_hash", nullable = false, length = 64)
+    private String keyHash;
+
+    @NotNull
+    @Column(name = "account_id", nullable = false)
+    private Integer accountId;
+
+    @Size(max = 64)
+    @NotNull
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 12)
+    private Status status;
+
+    @Lob
+    @Column(name = "response_body", columnDefinition = "MEDIUMTEXT")
+    private String responseBody;
+
+    @NotNull
+    @Column(name = "claimed_at", nullable = false)
+    private Instant claimedAt;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "createdOn", nullable = false)
+    private Instant createdOn;
+
+    public enum Status {IN_PROGRESS, COMPLETED}
+}
@@ -42,6 +42,12 @@ public class Order {
     @Column(name = "shippingAddress", nullable = false)
     private String shippingAddress;
 
+    @Column(name = "total_price")
+    private Integer totalPrice;
+
+    @Column(name = "item_count")
+    private Integer itemCount;
+
     @OneToMany(mappedBy = "order", fetch = FetchType.LAZY)
     private List<OrderItem> orderItems = new ArrayList<>();
 
@@ -40,4 +40,20 @@ public class OrderItem {
     @Column(name = "price_each", nullable = false)
     private Integer priceEach;
 
+    // Snapshot of the catalog at checkout, so order history does not depend on later edits
+    @Size(max = 255)
+    @Column(name = "description")
+    private String description;
+
+    @Size(max = 100)
+    @Column(name = "brand_name", length = 100)
+    private String brandName;
+
+    @Column(name = "seller_id")
+    private Integer sellerId;
+
+    @Size(max = 50)
+    @Column(name = "seller_nickname", length = 50)
+    private String sellerNickname;
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package org.example.itbmshopbe.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * One row per (order, account) that may see the order: its buyer and the seller of
+ * its items. Order history pages are read from here by account, so they no longer
+ * have to join through order_items and sale_item to find the seller.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "order_participant",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_participant", columnNames = {"order_id", "account_id", "role"}),
+        indexes = @Index(name = "idx_order_participant_account", columnList = "account_id, createdOn, order_id"))
+public class OrderParticipant {
+    public enum Role { BUYER, SELLER }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "role", nullable = false, length = 10)
+    private Role role;
+
+    // Copy of orders.createdOn so history can be sorted without touching orders
+    @NotNull
+    @Column(name = "createdOn", nullable = false)
+    private Instant createdOn;
+}
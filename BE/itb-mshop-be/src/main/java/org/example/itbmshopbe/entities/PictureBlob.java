@@ -0,0 +1,38 @@
+package org.example.itbmshopbe.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "picture_blob")
+public class PictureBlob {
+    @Id
+    @Size(max = 64)
+    @Column(name = "digest", nullable = false, length = 64)
+    private String digest;
+
+    @Size(max = 80)
+    @NotNull
+    @Column(name = "file_name", nullable = false, length = 80)
+    private String fileName;
+
+    @NotNull
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @NotNull
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @CreationTimestamp
+    @Column(name = "createdOn", nullable = false)
+    private Instant createdOn;
+}
@@ -53,4 +53,11 @@ public class SaleItemPicture {
     @Column(name = "display_order", nullable = false)
     private Integer displayOrder;
 
+    @Size(max = 64)
+    @Column(name = "blob_digest", length = 64)
+    private String blobDigest;
+
+    @Column(name = "derivatives_created_on")
+    private Instant derivativesCreatedOn;
+
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package org.example.itbmshopbe.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Completed-order totals per seller, day and sale item, maintained at checkout by
+ * {@code SellerSalesDailyRepository.addItemSale}.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(SellerItemSalesDaily.Key.class)
+@Table(name = "seller_item_sales_daily")
+public class SellerItemSalesDaily {
+    @Id
+    @Column(name = "seller_id", nullable = false)
+    private Integer sellerId;
+
+    @Id
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "sale_item_id", nullable = false)
+    private Integer saleItemId;
+
+    @NotNull
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount;
+
+    @NotNull
+    @Column(name = "units", nullable = false)
+    private Integer units;
+
+    @NotNull
+    @Column(name = "revenue", nullable = false)
+    private Long revenue;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer sellerId;
+        private LocalDate salesDate;
+        private Integer saleItemId;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.itbmshopbe.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Completed-order totals per seller and day, maintained at checkout by
+ * {@code SellerSalesDailyRepository.addSale}.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(SellerSalesDaily.Key.class)
+@Table(name = "seller_sales_daily")
+public class SellerSalesDaily {
+    @Id
+    @Column(name = "seller_id", nullable = false)
+    private Integer sellerId;
+
+    @Id
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @NotNull
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount;
+
+    @NotNull
+    @Column(name = "units", nullable = false)
+    private Integer units;
+
+    @NotNull
+    @Column(name = "revenue", nullable = false)
+    private Long revenue;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer sellerId;
+        private LocalDate salesDate;
+    }
+}
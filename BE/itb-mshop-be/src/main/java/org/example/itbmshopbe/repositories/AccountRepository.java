@@ -2,6 +2,9 @@ package org.example.itbmshopbe.repositories;
 
 import org.example.itbmshopbe.entities.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,4 +16,8 @@ public interface AccountRepository extends JpaRepository<Account, Integer> {
     Optional<Account> findByEmail(String email);
 
     boolean findAccountsById(Integer id);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.password = :newHash WHERE a.id = :id AND a.password = :oldHash")
+    int replacePasswordHash(@Param("id") Integer id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
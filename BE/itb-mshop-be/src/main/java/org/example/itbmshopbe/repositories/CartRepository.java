@@ -1,8 +1,13 @@
 package org.example.itbmshopbe.repositories;
 
 import org.example.itbmshopbe.entities.Cart;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +15,44 @@ public interface CartRepository extends JpaRepository<Cart, Integer> {
     List<Cart> findByAccountId(Integer accountId);
     Cart findByAccountIdAndSaleItemId(Integer accountId, Integer saleItemId);
     List<Cart> findByAccountIdAndSaleItemIdIn(Integer accountId, List<Integer> saleItemIds);  // ADD THIS
+
+    /**
+     * Cart rows with everything the cart view renders, each paired with a flag telling
+     * whether the customer has already ordered that sale item.
+     */
+    @Query("""
+            SELECT c,
+                   CASE WHEN EXISTS (
+                       SELECT 1 FROM OrderItem oi
+                       WHERE oi.order.customer.id = :accountId AND oi.saleItem.id = s.id
+                   ) THEN true ELSE false END
+            FROM Cart c
+            JOIN FETCH c.saleItem s
+            JOIN FETCH s.brand
+            JOIN FETCH s.seller se
+            JOIN FETCH se.account
+            WHERE c.account.id = :accountId
+            ORDER BY c.id
+            """)
+    List<Object[]> findCartViewByAccountId(@Param("accountId") Integer accountId);
+
+    @Query("""
+            SELECT c.id FROM Cart c
+            WHERE c.id > :afterId
+              AND (c.saleItem.deleted = true
+                   OR EXISTS (
+                       SELECT 1 FROM OrderItem oi
+                       WHERE oi.order.customer.id = c.account.id AND oi.saleItem.id = c.saleItem.id
+                   ))
+            ORDER BY c.id
+            """)
+    List<Integer> findStaleCartIds(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.saleItem.id = :saleItemId ORDER BY c.id")
+    List<Integer> findIdsBySaleItemId(@Param("saleItemId") Integer saleItemId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.account.id = :accountId AND c.saleItem.id IN :saleItemIds")
+    int deleteByAccountIdAndSaleItemIds(@Param("accountId") Integer accountId,
+                                        @Param("saleItemIds") Collection<Integer> saleItemIds);
 }
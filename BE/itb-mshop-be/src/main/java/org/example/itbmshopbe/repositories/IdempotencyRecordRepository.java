@@ -0,0 +1,57 @@
+package org.example.itbmshopbe.repositories;
+
+import org.example.itbmshopbe.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Returns 0 when the key is already taken
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_key " +
+            "(key_hash, account_id, request_hash, status, claimed_at, expires_at, createdOn) " +
+            "VALUES (:keyHash, :accountId, :requestHash, 'IN_PROGRESS', :now, :expiresAt, :now)",
+            nativeQuery = true)
+    int claim(@Param("keyHash") String keyHash,
+              @Param("accountId") Integer accountId,
+              @Param("requestHash") String requestHash,
+              @Param("now") Instant now,
+              @Param("expiresAt") Instant expiresAt);
+
+    // Takes over a claim whose owner died before committing
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :now " +
+            "WHERE r.keyHash = :keyHash AND r.requestHash = :requestHash " +
+            "AND r.status = 'IN_PROGRESS' AND r.claimedAt < :staleBefore")
+    int takeOverStale(@Param("keyHash") String keyHash,
+                      @Param("requestHash") String requestHash,
+                      @Param("now") Instant now,
+                      @Param("staleBefore") Instant staleBefore);
+
+    // Both fenced on claimedAt: 0 rows means the claim was taken over by another request
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseBody = :responseBody " +
+            "WHERE r.keyHash = :keyHash AND r.status = 'IN_PROGRESS' AND r.claimedAt = :claimedAt")
+    int complete(@Param("keyHash") String keyHash,
+                 @Param("claimedAt") Instant claimedAt,
+                 @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+            "WHERE r.keyHash = :keyHash AND r.status = 'IN_PROGRESS' AND r.claimedAt = :claimedAt")
+    int release(@Param("keyHash") String keyHash, @Param("claimedAt") Instant claimedAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash = :keyHash AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("keyHash") String keyHash, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_key WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int purgeExpired(@Param("now") Instant now, @Param("limit") int limit);
+}
@@ -2,9 +2,18 @@ package org.example.itbmshopbe.repositories;
 
 import org.example.itbmshopbe.entities.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem,Integer> {
     boolean existsByOrderCustomerIdAndSaleItemId(Integer customerId, Integer saleItemId);
+
+    @Query("SELECT DISTINCT oi.saleItem.id FROM OrderItem oi WHERE oi.order.customer.id = :customerId AND oi.saleItem.id IN :saleItemIds")
+    Set<Integer> findOrderedSaleItemIds(@Param("customerId") Integer customerId,
+                                        @Param("saleItemIds") Collection<Integer> saleItemIds);
 }
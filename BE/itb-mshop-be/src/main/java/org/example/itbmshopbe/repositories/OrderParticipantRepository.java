@@ -0,0 +1,20 @@
+package org.example.itbmshopbe.repositories;
+
+import org.example.itbmshopbe.entities.OrderParticipant;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderParticipantRepository extends JpaRepository<OrderParticipant, Long> {
+
+    @Query(value = "SELECT p.order.id FROM OrderParticipant p WHERE p.account.id = :accountId",
+            countQuery = "SELECT COUNT(p) FROM OrderParticipant p WHERE p.account.id = :accountId")
+    Page<Integer> findOrderIdsByAccountId(@Param("accountId") Integer accountId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(p.order.id), 0) FROM OrderParticipant p")
+    Integer findMaxOrderId();
+}
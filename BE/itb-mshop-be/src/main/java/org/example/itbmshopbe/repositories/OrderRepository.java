@@ -3,10 +3,65 @@ package org.example.itbmshopbe.repositories;
 import org.example.itbmshopbe.entities.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order,Integer> ,
         JpaSpecificationExecutor<Order>
 {
+    @Query("""
+            SELECT DISTINCT o FROM Order o
+            JOIN FETCH o.customer
+            LEFT JOIN FETCH o.orderItems
+            WHERE o.id IN :ids
+            """)
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Orders created by earlier versions that have no participant rows yet
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO order_participant (order_id, account_id, role, createdOn)
+            SELECT o.id, o.customer_id, 'BUYER', COALESCE(o.createdOn, CURRENT_TIMESTAMP)
+            FROM orders o WHERE o.id > :afterOrderId
+            UNION ALL
+            SELECT DISTINCT o.id, s.seller_id, 'SELLER', COALESCE(o.createdOn, CURRENT_TIMESTAMP)
+            FROM orders o
+            JOIN order_items oi ON oi.order_id = o.id
+            JOIN sale_item s ON s.id = oi.sale_item_id
+            WHERE o.id > :afterOrderId
+            """, nativeQuery = true)
+    int backfillParticipants(@Param("afterOrderId") Integer afterOrderId);
+
+    // Lines checked out before the snapshot columns existed; same format as OrderService.describe
+    @Modifying
+    @Query(value = """
+            UPDATE order_items oi
+            JOIN sale_item s ON s.id = oi.sale_item_id
+            JOIN brand b ON b.id = s.brand_id
+            JOIN account a ON a.id = s.seller_id
+            SET oi.description = LEFT(CONCAT(b.name, ' ', s.model, ' (',
+                    IFNULL(CONCAT(s.storageGb, 'GB'), '-'), ' ', IFNULL(s.color, '-'), ')'), 255),
+                oi.brand_name = b.name,
+                oi.seller_id = s.seller_id,
+                oi.seller_nickname = a.nickname
+            WHERE oi.description IS NULL
+            """, nativeQuery = true)
+    int backfillItemSnapshots();
+
+    @Modifying
+    @Query(value = """
+            UPDATE orders o
+            JOIN (SELECT order_id, SUM(price_each * quantity) AS total_price, SUM(quantity) AS item_count
+                  FROM order_items GROUP BY order_id) t ON t.order_id = o.id
+            SET o.total_price = t.total_price,
+                o.item_count = t.item_count
+            WHERE o.total_price IS NULL
+            """, nativeQuery = true)
+    int backfillTotals();
 }
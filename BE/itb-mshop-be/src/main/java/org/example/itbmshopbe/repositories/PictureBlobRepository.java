@@ -0,0 +1,33 @@
+package org.example.itbmshopbe.repositories;
+
+import org.example.itbmshopbe.entities.PictureBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PictureBlobRepository extends JpaRepository<PictureBlob, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO picture_blob (digest, file_name, size_bytes, ref_count, createdOn) " +
+            "VALUES (:digest, :fileName, :sizeBytes, 1, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int acquire(@Param("digest") String digest,
+                @Param("fileName") String fileName,
+                @Param("sizeBytes") long sizeBytes);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PictureBlob b SET b.refCount = b.refCount - 1 WHERE b.digest = :digest")
+    int release(@Param("digest") String digest);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PictureBlob b WHERE b.digest = :digest AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("digest") String digest);
+
+    @Query("SELECT b.fileName FROM PictureBlob b WHERE b.digest = :digest")
+    String findFileNameByDigest(@Param("digest") String digest);
+}
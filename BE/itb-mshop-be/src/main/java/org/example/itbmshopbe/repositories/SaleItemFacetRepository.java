@@ -0,0 +1,17 @@
+package org.example.itbmshopbe.repositories;
+
+import jakarta.persistence.Tuple;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface SaleItemFacetRepository {
+
+    /**
+     * Counts the sale items matching {@code spec} grouped by brand name, storageGb
+     * and price bucket ({@code floor(price / priceBucketSize)}). Each tuple holds
+     * the aliases brandName, storageGb, priceBucket and total.
+     */
+    List<Tuple> countFacets(Specification<SaleItem> spec, int priceBucketSize);
+}
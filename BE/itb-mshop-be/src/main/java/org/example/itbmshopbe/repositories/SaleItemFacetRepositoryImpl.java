@@ -0,0 +1,47 @@
+package org.example.itbmshopbe.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class SaleItemFacetRepositoryImpl implements SaleItemFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> countFacets(Specification<SaleItem> spec, int priceBucketSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<SaleItem> root = query.from(SaleItem.class);
+
+        Path<String> brandName = root.get("brand").get("name");
+        Path<Integer> storageGb = root.get("storageGb");
+        Expression<Integer> priceBucket = cb.function("floor", Integer.class,
+                cb.quot(root.get("price"), cb.literal(priceBucketSize)));
+
+        query.multiselect(
+                brandName.alias("brandName"),
+                storageGb.alias("storageGb"),
+                priceBucket.alias("priceBucket"),
+                cb.count(root).alias("total")
+        );
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(brandName, storageGb, priceBucket);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -1,8 +1,14 @@
 package org.example.itbmshopbe.repositories;
 
 import org.example.itbmshopbe.entities.SaleItemPicture;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface SaleItemPictureRepository extends JpaRepository<SaleItemPicture,Integer> {
@@ -11,4 +17,12 @@ public interface SaleItemPictureRepository extends JpaRepository<SaleItemPicture
 
     int countBySaleItemId(Integer saleItemId);
 
+    @Transactional
+    @Modifying
+    @Query("UPDATE SaleItemPicture p SET p.derivativesCreatedOn = :createdOn WHERE p.id = :id")
+    int markDerivativesCreated(@Param("id") Integer id, @Param("createdOn") Instant createdOn);
+
+    @Query("SELECT p.id FROM SaleItemPicture p WHERE p.derivativesCreatedOn IS NULL AND p.createdOn < :createdBefore ORDER BY p.id")
+    List<Integer> findIdsWithoutDerivatives(@Param("createdBefore") Instant createdBefore, Pageable pageable);
+
 }
@@ -3,20 +3,44 @@ package org.example.itbmshopbe.repositories;
 import org.example.itbmshopbe.entities.SaleItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SaleItemRepository extends JpaRepository<SaleItem, Integer>,
-        JpaSpecificationExecutor<SaleItem> {
+        JpaSpecificationExecutor<SaleItem>, SaleItemFacetRepository {
+
+    @Override
+    @EntityGraph(attributePaths = {"brand", "seller", "seller.account"})
+    Page<SaleItem> findAll(Specification<SaleItem> spec, Pageable pageable);
 
     @Query("SELECT COUNT(s) FROM SaleItem s WHERE s.brand.id = :brandId")
     Integer countByBrandId(Integer brandId);
 
     boolean existsByBrandId(Integer id);
+
+    @Query("SELECT s FROM SaleItem s " +
+            "JOIN FETCH s.brand " +
+            "JOIN FETCH s.seller se " +
+            "JOIN FETCH se.account " +
+            "WHERE s.id IN :ids")
+    List<SaleItem> findAllWithBrandAndSellerByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE SaleItem s SET s.quantity = s.quantity - :quantity " +
+            "WHERE s.id = :id AND s.quantity >= :quantity")
+    int reserveStock(@Param("id") Integer id, @Param("quantity") Integer quantity);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE SaleItem s SET s.quantity = s.quantity + :quantity WHERE s.id = :id")
+    int releaseStock(@Param("id") Integer id, @Param("quantity") Integer quantity);
 }
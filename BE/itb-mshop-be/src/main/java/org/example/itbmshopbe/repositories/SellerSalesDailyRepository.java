@@ -0,0 +1,45 @@
+package org.example.itbmshopbe.repositories;
+
+import org.example.itbmshopbe.entities.SellerSalesDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SellerSalesDailyRepository extends JpaRepository<SellerSalesDaily, SellerSalesDaily.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO seller_sales_daily (seller_id, sales_date, order_count, units, revenue) " +
+            "VALUES (:sellerId, :salesDate, 1, :units, :revenue) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + 1, units = units + :units, revenue = revenue + :revenue",
+            nativeQuery = true)
+    int addSale(@Param("sellerId") Integer sellerId,
+                @Param("salesDate") LocalDate salesDate,
+                @Param("units") int units,
+                @Param("revenue") long revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO seller_item_sales_daily (seller_id, sales_date, sale_item_id, order_count, units, revenue) " +
+            "VALUES (:sellerId, :salesDate, :saleItemId, 1, :units, :revenue) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + 1, units = units + :units, revenue = revenue + :revenue",
+            nativeQuery = true)
+    int addItemSale(@Param("sellerId") Integer sellerId,
+                    @Param("salesDate") LocalDate salesDate,
+                    @Param("saleItemId") Integer saleItemId,
+                    @Param("units") int units,
+                    @Param("revenue") long revenue);
+
+    List<SellerSalesDaily> findBySellerIdAndSalesDateBetweenOrderBySalesDate(Integer sellerId, LocalDate from, LocalDate to);
+
+    @Query("SELECT r.saleItemId, SUM(r.orderCount), SUM(r.units), SUM(r.revenue) FROM SellerItemSalesDaily r " +
+            "WHERE r.sellerId = :sellerId AND r.salesDate BETWEEN :from AND :to " +
+            "GROUP BY r.saleItemId ORDER BY SUM(r.revenue) DESC")
+    List<Object[]> sumItemSales(@Param("sellerId") Integer sellerId,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to);
+}
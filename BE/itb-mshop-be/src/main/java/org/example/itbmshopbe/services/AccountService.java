@@ -3,6 +3,7 @@ package org.example.itbmshopbe.services;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.itbmshopbe.dtos.AccountDTO.*;
 import org.example.itbmshopbe.dtos.AccountDTO.ResetPassword.ResetPasswordRequestDto;
 import org.example.itbmshopbe.dtos.AccountDTO.ResetPassword.VerifyResetCodeRequestDto;
@@ -20,9 +21,9 @@ import org.example.itbmshopbe.utils.Util;
 import org.example.itbmshopbe.utils.ValidationUtil;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -31,12 +32,14 @@ import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.Random;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
     private final SellerRepository sellerRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginAttemptThrottle loginAttemptThrottle;
     private final FileService fileService;
     private final EmailVerificationTokenRepository tokenRepository;
     private final EmailService emailService;
@@ -44,24 +47,32 @@ public class AccountService {
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final ValidationUtil validationUtil;
     private final EntityValidatorUtil entityValidatorUtil;
+    private final TransactionTemplate transactionTemplate;
 
     public UserResponseDto registerAccount(RegisterRequestDto accountReq,
                                            MultipartFile frontPhoto,
-                                           MultipartFile backPhoto) {
+                                           MultipartFile backPhoto,
+                                           String clientIp) {
+        loginAttemptThrottle.checkRegistration(clientIp);
         validateRole(accountReq.getRole());
         checkEmailNotInUse(accountReq.getEmail());
 
         if ("SELLER".equalsIgnoreCase(accountReq.getRole())) {
             validateSellerFields(accountReq);
         }
+        loginAttemptThrottle.recordRegistration(clientIp);
 
+        // Hash the password before the transaction so no connection is held meanwhile
         Account newAccount = createAccount(accountReq);
-        Account savedAccount = accountRepository.save(newAccount);
-
-        if ("SELLER".equalsIgnoreCase(accountReq.getRole())) {
-            createSeller(savedAccount, accountReq, frontPhoto, backPhoto);
-        }
-        sendVerificationEmail(savedAccount);
+        Account savedAccount = transactionTemplate.execute(status -> {
+            Account account = accountRepository.save(newAccount);
+            if ("SELLER".equalsIgnoreCase(accountReq.getRole())) {
+                createSeller(account, accountReq, frontPhoto, backPhoto);
+            }
+            // The verification email is queued in the outbox with the account itself
+            sendVerificationEmail(account);
+            return account;
+        });
 
         return mapToUserResponseDto(savedAccount);
     }
@@ -133,7 +144,7 @@ public class AccountService {
         account.setNickname(accountReq.getNickName());
         account.setFullname(accountReq.getFullName());
         account.setEmail(accountReq.getEmail());
-        account.setPassword(passwordEncoder.encode(accountReq.getPassword()));
+        account.setPassword(passwordHashingService.encode(accountReq.getPassword()));
         account.setRole(accountReq.getRole());
         account.setStatus(Account.Status.INACTIVE);
         return account;
@@ -151,11 +162,7 @@ public class AccountService {
         String verificationUrl = "https://intproj24.sit.kmutt.ac.th/nw3/verify-email?token=" + token;
         String emailHtml = buildVerificationEmailHtml(verificationUrl);
 
-        try {
-            emailService.sendEmail(account.getEmail(), "Verify your account", emailHtml);
-        } catch (Exception e) {
-            System.out.println("Failed to send verification email: " + e.getMessage());
-        }
+        emailService.sendEmail(account.getEmail(), "Verify your account", emailHtml);
     }
 
     private String buildVerificationEmailHtml(String verificationUrl) {
@@ -218,11 +225,14 @@ public class AccountService {
 
         return dto;
     }
-    public LoginResponseDto loginAccount(LoginRequestDto loginRequestDto) {
+    public LoginResponseDto loginAccount(LoginRequestDto loginRequestDto, String clientIp) {
+        loginAttemptThrottle.checkLogin(loginRequestDto.getEmail(), clientIp);
         Optional<Account> accountOpt = accountRepository.findByEmail(loginRequestDto.getEmail());
         if (accountOpt.isPresent()) {
             Account account = accountOpt.get();
-            if(passwordEncoder.matches(loginRequestDto.getPassword(), account.getPassword())) {
+            if(passwordHashingService.matches(loginRequestDto.getPassword(), account.getPassword())) {
+                loginAttemptThrottle.recordLoginSuccess(loginRequestDto.getEmail());
+                upgradePasswordHashIfOutdated(account, loginRequestDto.getPassword());
                 if (account.getStatus() != Account.Status.ACTIVE) {
                     throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Account is not activated. Please verify your email first.");
                 }
@@ -244,8 +254,25 @@ public class AccountService {
                 return new LoginResponseDto(accessToken, refreshToken);
             }
         }
+        loginAttemptThrottle.recordLoginFailure(loginRequestDto.getEmail(), clientIp);
         throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Email or Password is incorrect.");
     }
+
+    // The new hash only replaces the one we verified against, so a concurrent password reset wins
+    private void upgradePasswordHashIfOutdated(Account account, String rawPassword) {
+        String oldHash = account.getPassword();
+        if (!passwordHashingService.needsUpgrade(oldHash)) {
+            return;
+        }
+        Integer accountId = account.getId();
+        passwordHashingService.encodeInBackground(rawPassword, newHash -> {
+            Integer updated = transactionTemplate.execute(status ->
+                    accountRepository.replacePasswordHash(accountId, oldHash, newHash));
+            if (updated != null && updated > 0) {
+                log.info("Upgraded password hash parameters for account {}", accountId);
+            }
+        });
+    }
     public void logout(String refreshToken) {
         try {
             JwtTokenUtil.validateToken(refreshToken);
@@ -399,7 +426,7 @@ public class AccountService {
             );
         }
         Account account = resetToken.getAccount();
-        account.setPassword(passwordEncoder.encode(resetPasswordDto.getNewPassword()));
+        account.setPassword(passwordHashingService.encode(resetPasswordDto.getNewPassword()));
         accountRepository.save(account);
         resetToken.setUsed(true);
         passwordResetTokenRepository.save(resetToken);
@@ -0,0 +1,63 @@
+package org.example.itbmshopbe.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.itbmshopbe.dtos.BrandDTO.BrandDetailsDto;
+import org.example.itbmshopbe.utils.TtlCache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.example.itbmshopbe.utils.TransactionUtil.afterCommit;
+
+/**
+ * Caches the brand list and per-brand details (including the sale item count).
+ * Brands rarely change, so entries live for ten minutes and are dropped
+ * explicitly when brands or sale items are written.
+ */
+@Component
+@RequiredArgsConstructor
+public class BrandCache {
+    private static final String ALL_BRANDS = "all";
+
+    private final MeterRegistry meterRegistry;
+
+    private final TtlCache<String, List<BrandDetailsDto>> brandList = new TtlCache<>(Duration.ofMinutes(10), 1);
+    private final TtlCache<Integer, BrandDetailsDto> brandDetails = new TtlCache<>(Duration.ofMinutes(10), 500);
+
+    @PostConstruct
+    void registerMetrics() {
+        brandList.registerMetrics(meterRegistry, "brandList");
+        brandDetails.registerMetrics(meterRegistry, "brandDetails");
+    }
+
+    public List<BrandDetailsDto> getAllBrands(Supplier<List<BrandDetailsDto>> loader) {
+        return brandList.getOrLoad(ALL_BRANDS, loader);
+    }
+
+    public BrandDetailsDto getBrand(Integer brandId, Supplier<BrandDetailsDto> loader) {
+        return brandDetails.getOrLoad(brandId, loader);
+    }
+
+    /** Drops every cached brand entry, after the current transaction commits if there is one. */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            brandList.invalidateAll();
+            brandDetails.invalidateAll();
+        });
+    }
+
+    /** Drops the cached sale item count of the given brands, e.g. after a sale item is added or removed. */
+    public void invalidateBrands(Integer... brandIds) {
+        afterCommit(() -> {
+            for (Integer brandId : brandIds) {
+                if (brandId != null) {
+                    brandDetails.invalidate(brandId);
+                }
+            }
+        });
+    }
+}
@@ -25,6 +25,8 @@ public class BrandService {
 
     private final ModelMapper modelMapper;
     private final ListMapper listMapper;
+    private final BrandCache brandCache;
+    private final SaleItemDetailCache saleItemDetailCache;
 
     private BrandDetailsDto convertToDetailsDto(Brand brand) {
         BrandDetailsDto dto = modelMapper.map(brand, BrandDetailsDto.class);
@@ -32,15 +34,17 @@ public class BrandService {
         return dto;
     }
     public List<BrandDetailsDto> getAllBrands() {
-        List<Brand> brands = brandRepository.findAll();
-        return listMapper.mapList(brands, BrandDetailsDto.class, modelMapper);
+        return brandCache.getAllBrands(() ->
+                listMapper.mapList(brandRepository.findAll(), BrandDetailsDto.class, modelMapper));
     }
 
     public BrandDetailsDto getBrandById(Integer id) {
-        Brand brand = brandRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Brand not found for id :: " + id));
-        return convertToDetailsDto(brand);
+        return brandCache.getBrand(id, () -> {
+            Brand brand = brandRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "Brand not found for id :: " + id));
+            return convertToDetailsDto(brand);
+        });
     }
 
     @Transactional
@@ -61,6 +65,7 @@ public class BrandService {
             brand.setIsActive(requestDto.getIsActive() != null ? requestDto.getIsActive() : true);
 
             Brand savedBrand = brandRepository.save(brand);
+            brandCache.invalidateAll();
             return modelMapper.map(savedBrand, BrandDetailsDto.class);
         }
         catch (ResponseStatusException e) {
@@ -95,6 +100,8 @@ public class BrandService {
             existingBrand.setIsActive(requestDto.getIsActive() != null ? requestDto.getIsActive() : true);
 
             Brand updatedBrand = brandRepository.save(existingBrand);
+            brandCache.invalidateAll();
+            saleItemDetailCache.invalidateAll();
             return convertToDetailsDto(updatedBrand);
         } catch (ResponseStatusException e) {
             throw e;
@@ -116,5 +123,6 @@ public class BrandService {
                     "Brand with id " + id + " cannot be deleted as it has sale items associated with it");
         }
         brandRepository.deleteById(id);
+        brandCache.invalidateAll();
     }
 }
@@ -1,6 +1,7 @@
 package org.example.itbmshopbe.services;
 
 import lombok.RequiredArgsConstructor;
+import org.example.itbmshopbe.dtos.CartDTO.CartBatchOperationDto;
 import org.example.itbmshopbe.dtos.CartDTO.CartRequestDto;
 import org.example.itbmshopbe.dtos.CartDTO.CartResponseDto;
 import org.example.itbmshopbe.entities.Account;
@@ -18,12 +19,19 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
+    private static final int MAX_BATCH_OPERATIONS = 200;
+
     private final CartRepository cartRepository;
     private final AccountRepository accountRepository;
     private final SaleItemRepository saleItemRepository;
@@ -74,28 +82,23 @@ public class CartService {
         return mapToCartResponse(savedCart);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<CartResponseDto> getAllCartItemsByUser(Integer userId) {
-        Account account = accountRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND,
-                        "Account not found"
-                ));
-
-        List<Cart> cartItems = cartRepository.findByAccountId(userId);
-
-        // Auto-remove items that have been ordered OR deleted
-        List<Cart> itemsToRemove = cartItems.stream()
-                .filter(cart ->
-                        orderItemRepository.existsByOrderCustomerIdAndSaleItemId(
-                                userId, cart.getSaleItem().getId()) ||
-                                Boolean.TRUE.equals(cart.getSaleItem().getDeleted())
-                )
-                .collect(Collectors.toList());
+        if (!accountRepository.existsById(userId)) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    "Account not found"
+            );
+        }
 
-        if (!itemsToRemove.isEmpty()) {
-            cartRepository.deleteAll(itemsToRemove);
-            cartItems.removeAll(itemsToRemove);
+        // Hide items that have been ordered OR deleted; CartSweeper removes the rows
+        List<Cart> cartItems = new ArrayList<>();
+        for (Object[] row : cartRepository.findCartViewByAccountId(userId)) {
+            Cart cart = (Cart) row[0];
+            boolean alreadyOrdered = Boolean.TRUE.equals(row[1]);
+            if (!alreadyOrdered && !Boolean.TRUE.equals(cart.getSaleItem().getDeleted())) {
+                cartItems.add(cart);
+            }
         }
 
         return cartItems.stream()
@@ -103,7 +106,128 @@ public class CartService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Applies add/update/remove operations for many sale items in one transaction and
+     * returns the resulting cart. Everything is validated up front with one query per
+     * table, so either all operations apply or none do.
+     */
     @Transactional
+    public List<CartResponseDto> applyBatch(Integer userId, List<CartBatchOperationDto> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Operations must not be empty");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_OPERATIONS + " operations are allowed per batch"
+            );
+        }
+
+        Map<Integer, CartBatchOperationDto> operationsBySaleItem = new LinkedHashMap<>();
+        for (CartBatchOperationDto operation : operations) {
+            if (operation.getAction() == null || operation.getSaleItemId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Each operation needs an action and a saleItemId");
+            }
+            if (operation.getAction() == CartBatchOperationDto.Action.ADD
+                    && (operation.getQuantity() == null || operation.getQuantity() <= 0)) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "Quantity must be positive for sale item " + operation.getSaleItemId()
+                );
+            }
+            if (operationsBySaleItem.put(operation.getSaleItemId(), operation) != null) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "Duplicate operation for sale item " + operation.getSaleItemId()
+                );
+            }
+        }
+
+        Account account = repositoryHelper.findByIdOrThrow(accountRepository, userId, "Account");
+        Set<Integer> saleItemIds = operationsBySaleItem.keySet();
+        Map<Integer, SaleItem> saleItems = saleItemRepository.findAllById(saleItemIds).stream()
+                .collect(Collectors.toMap(SaleItem::getId, Function.identity()));
+        Map<Integer, Cart> existingCarts = cartRepository.findByAccountIdAndSaleItemIdIn(userId, List.copyOf(saleItemIds))
+                .stream()
+                .collect(Collectors.toMap(cart -> cart.getSaleItem().getId(), Function.identity()));
+        Set<Integer> orderedSaleItemIds = orderItemRepository.findOrderedSaleItemIds(userId, saleItemIds);
+
+        List<Cart> toSave = new ArrayList<>();
+        List<Cart> toRemove = new ArrayList<>();
+        for (CartBatchOperationDto operation : operationsBySaleItem.values()) {
+            Integer saleItemId = operation.getSaleItemId();
+            Cart existingCart = existingCarts.get(saleItemId);
+            switch (operation.getAction()) {
+                case REMOVE -> {
+                    if (existingCart != null) {
+                        toRemove.add(existingCart);
+                    }
+                }
+                case ADD -> {
+                    SaleItem saleItem = saleItems.get(saleItemId);
+                    validateAddable(saleItem, saleItemId, userId);
+                    Cart cart = existingCart;
+                    if (cart == null) {
+                        cart = new Cart();
+                        cart.setAccount(account);
+                        cart.setSaleItem(saleItem);
+                        cart.setQuantity(operation.getQuantity());
+                    } else {
+                        cart.setQuantity(cart.getQuantity() + operation.getQuantity());
+                    }
+                    cart.setNote(operation.getNote());
+                    toSave.add(cart);
+                }
+                case UPDATE -> {
+                    if (existingCart == null) {
+                        throw new ResponseStatusException(
+                                HttpStatus.NOT_FOUND,
+                                "Cart item not found for sale item " + saleItemId
+                        );
+                    }
+                    if (Boolean.TRUE.equals(existingCart.getSaleItem().getDeleted())) {
+                        throw new ResponseStatusException(
+                                HttpStatus.GONE,
+                                "Sale item " + saleItemId + " has been deleted"
+                        );
+                    }
+                    if (orderedSaleItemIds.contains(saleItemId)) {
+                        throw new ResponseStatusException(
+                                HttpStatus.GONE,
+                                "Sale item " + saleItemId + " has already been ordered"
+                        );
+                    }
+                    if (operation.getQuantity() != null && operation.getQuantity() > 0) {
+                        existingCart.setQuantity(operation.getQuantity());
+                    }
+                    if (operation.getNote() != null) {
+                        existingCart.setNote(operation.getNote());
+                    }
+                    toSave.add(existingCart);
+                }
+            }
+        }
+
+        if (!toRemove.isEmpty()) {
+            cartRepository.deleteAllInBatch(toRemove);
+        }
+        cartRepository.saveAll(toSave);
+        return getAllCartItemsByUser(userId);
+    }
+
+    private void validateAddable(SaleItem saleItem, Integer saleItemId, Integer userId) {
+        if (saleItem == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "SaleItem not found for id :: " + saleItemId);
+        }
+        if (Boolean.TRUE.equals(saleItem.getDeleted())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot add deleted item to cart");
+        }
+        if (saleItem.getSeller().getId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot add your own items to cart");
+        }
+    }
+
+    @Transactional(readOnly = true)
     public CartResponseDto getCartById(Integer cartId, Integer userId) {
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResponseStatusException(
@@ -118,7 +242,6 @@ public class CartService {
             );
         }
         if (Boolean.TRUE.equals(cart.getSaleItem().getDeleted())) {
-            cartRepository.delete(cart);
             throw new ResponseStatusException(
                     HttpStatus.GONE,
                     "Item has been deleted and removed from cart"
@@ -129,7 +252,6 @@ public class CartService {
                 userId, cart.getSaleItem().getId());
 
         if (isAlreadyOrdered) {
-            cartRepository.delete(cart);
             throw new ResponseStatusException(
                     HttpStatus.GONE,
                     "Item already ordered and removed from cart"
@@ -154,7 +276,6 @@ public class CartService {
             );
         }
         if (Boolean.TRUE.equals(cart.getSaleItem().getDeleted())) {
-            cartRepository.delete(cart);
             throw new ResponseStatusException(
                     HttpStatus.GONE,
                     "Item has been deleted and removed from cart"
@@ -165,7 +286,6 @@ public class CartService {
                 userId, cart.getSaleItem().getId());
 
         if (isAlreadyOrdered) {
-            cartRepository.delete(cart);
             throw new ResponseStatusException(
                     HttpStatus.GONE,
                     "Item already ordered and removed from cart"
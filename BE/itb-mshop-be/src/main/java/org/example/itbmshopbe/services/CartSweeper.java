@@ -0,0 +1,91 @@
+package org.example.itbmshopbe.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.repositories.CartRepository;
+import org.example.itbmshopbe.utils.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Removes cart rows that point at deleted or already-ordered sale items, so cart
+ * reads never have to write. Rows are deleted in short chunked transactions to keep
+ * lock times low; reads filter out anything the sweeper has not reached yet.
+ * Every chunk gets its own REQUIRES_NEW transaction, because the purges run after
+ * the caller's transaction has already committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartSweeper {
+    private final CartRepository cartRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cart.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${cart.sweeper.interval-ms:300000}")
+    public void sweep() {
+        int removed = 0;
+        Integer afterId = 0;
+        while (true) {
+            List<Integer> staleIds = cartRepository.findStaleCartIds(afterId, PageRequest.ofSize(batchSize));
+            if (staleIds.isEmpty()) {
+                break;
+            }
+            removed += deleteChunk(staleIds);
+            if (staleIds.size() < batchSize) {
+                break;
+            }
+            afterId = staleIds.get(staleIds.size() - 1);
+        }
+        if (removed > 0) {
+            log.info("Cart sweeper removed {} stale cart rows", removed);
+        }
+    }
+
+    /** Queues removal of every cart row for a sale item once the current transaction commits. */
+    public void purgeSaleItemAfterCommit(Integer saleItemId) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                List<Integer> cartIds;
+                do {
+                    cartIds = cartRepository.findIdsBySaleItemId(saleItemId, PageRequest.ofSize(batchSize));
+                    deleteChunk(cartIds);
+                } while (cartIds.size() == batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Failed to purge carts for sale item {}, leaving it to the sweeper", saleItemId, e);
+            }
+        });
+    }
+
+    /** Queues removal of the buyer's cart rows for items they just ordered. */
+    public void purgeOrderedAfterCommit(Integer accountId, Collection<Integer> saleItemIds) {
+        if (saleItemIds.isEmpty()) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            try {
+                TransactionUtil.requiresNew(transactionManager).executeWithoutResult(status ->
+                        cartRepository.deleteByAccountIdAndSaleItemIds(accountId, saleItemIds));
+            } catch (RuntimeException e) {
+                log.warn("Failed to purge ordered items from cart of account {}, leaving it to the sweeper", accountId, e);
+            }
+        });
+    }
+
+    private int deleteChunk(List<Integer> cartIds) {
+        if (cartIds.isEmpty()) {
+            return 0;
+        }
+        TransactionUtil.requiresNew(transactionManager)
+                .executeWithoutResult(status -> cartRepository.deleteAllByIdInBatch(cartIds));
+        return cartIds.size();
+    }
+}
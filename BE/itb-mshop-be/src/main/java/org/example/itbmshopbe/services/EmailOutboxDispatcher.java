@@ -0,0 +1,166 @@
+package org.example.itbmshopbe.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.entities.EmailOutbox;
+import org.example.itbmshopbe.repositories.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends queued emails from the outbox. Each run claims due rows with SKIP LOCKED and
+ * leases them for a few minutes, then sends the whole batch over one SMTP connection
+ * outside any transaction. Failed messages are retried with exponential backoff
+ * until max-attempts, after which they are marked FAILED.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final AtomicLong pending = new AtomicLong();
+    private Timer sendTimer;
+    private Counter sentCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        sendTimer = Timer.builder("email.outbox.send").description("SMTP time per batch").register(meterRegistry);
+        sentCounter = Counter.builder("email.outbox.sent").register(meterRegistry);
+        failedCounter = Counter.builder("email.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                sendBatch(batch);
+            }
+        } while (batch.size() == batchSize);
+        pending.set(emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutbox> due = emailOutboxRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+            // Keep other dispatchers off these rows while they are sent; if this instance
+            // dies mid-send they become due again when the lease runs out
+            due.forEach(email -> email.setNextAttemptAt(now.plusSeconds(leaseSeconds)));
+            return due;
+        });
+    }
+
+    private void sendBatch(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                scheduleRetry(email, e);
+            }
+        }
+
+        if (messages.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+            return;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+        } catch (MailException e) {
+            // Authentication or connection problems fail the whole batch
+            Map<Object, Exception> all = new IdentityHashMap<>();
+            messages.keySet().forEach(message -> all.put(message, e));
+            failures = all;
+        } finally {
+            sample.stop(sendTimer);
+        }
+
+        Instant now = Instant.now();
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : messages.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                EmailOutbox email = entry.getValue();
+                email.setStatus(EmailOutbox.Status.SENT);
+                email.setSentAt(now);
+                email.setAttempts(email.getAttempts() + 1);
+                email.setLastError(null);
+                sentCounter.increment();
+            } else {
+                scheduleRetry(entry.getValue(), failure);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtmlBody(), true);
+        return message;
+    }
+
+    private void scheduleRetry(EmailOutbox email, Exception failure) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String error = String.valueOf(failure.getMessage());
+        email.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        failedCounter.increment();
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            log.warn("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), attempts, failure);
+            return;
+        }
+        Duration backoff = Duration.ofSeconds(retryBaseSeconds).multipliedBy(1L << Math.min(attempts - 1, 20));
+        email.setNextAttemptAt(Instant.now().plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+    }
+}
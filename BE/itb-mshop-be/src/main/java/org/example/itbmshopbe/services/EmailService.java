@@ -1,31 +1,27 @@
 package org.example.itbmshopbe.services;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.example.itbmshopbe.entities.EmailOutbox;
+import org.example.itbmshopbe.repositories.EmailOutboxRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
 
+    /**
+     * Queues an email in the outbox as part of the caller's transaction; it is sent
+     * by {@link EmailOutboxDispatcher} once that transaction commits.
+     */
     public void sendEmail(String to, String subject, String htmlContent) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email to " + to, e);
-        }
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setHtmlBody(htmlContent);
+        email.setNextAttemptAt(Instant.now());
+        emailOutboxRepository.save(email);
     }
 }
@@ -2,22 +2,39 @@ package org.example.itbmshopbe.services;
 
 import lombok.Getter;
 import org.example.itbmshopbe.utils.FileStorageProperties;
+import org.example.itbmshopbe.utils.PictureSize;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.regex.Pattern;
 
 @Service
 @Getter
 public class FileService {
+    private static final String DERIVATIVES_DIR = "derivatives";
+    private static final String BLOBS_DIR = "blobs";
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(\\.[A-Za-z0-9]+)?");
+
     private final Path fileStorageLocation;
 
     @Autowired
@@ -63,18 +80,133 @@ public class FileService {
     }
 
 
-    public Resource loadFileAsResource(String fileName) {
+    /**
+     * Streams an upload to a temporary file in the upload directory while hashing it,
+     * so the blob name is known without reading the file twice.
+     */
+    public StagedBlob stageBlob(MultipartFile file) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Path temp = Files.createTempFile(this.fileStorageLocation, "upload", ".tmp");
+        try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new StagedBlob(temp, HexFormat.of().formatHex(sha256.digest()), Files.size(temp));
+    }
+
+    /** Moves a staged upload to its blob location, or drops it when the blob already exists. */
+    public void publishBlob(StagedBlob staged, String fileName) throws IOException {
+        Path target = resolvePath(fileName);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(staged.tempPath());
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(staged.tempPath(), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void discardStaged(StagedBlob staged) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            if (resource.exists()) {
-                return resource;
+            Files.deleteIfExists(staged.tempPath());
+        } catch (IOException ignored) {
+            // Leftover temp files are harmless
+        }
+    }
+
+    public boolean isBlobName(String fileName) {
+        return fileName != null && BLOB_NAME.matcher(fileName).matches();
+    }
+
+    public String getBlobDigest(String fileName) {
+        return isBlobName(fileName) ? fileName.substring(0, 64) : null;
+    }
+
+    /**
+     * Blobs are stored under blobs/ab/cd/&lt;digest&gt;.&lt;ext&gt; to keep directories small;
+     * files stored by name (legacy pictures, documents) stay in the upload root.
+     */
+    public Path resolvePath(String fileName) {
+        return this.fileStorageLocation.resolve(relativePath(fileName));
+    }
+
+    /**
+     * Derivatives live under derivatives/&lt;size&gt;/ and are named after the original,
+     * so they can be found without a database lookup.
+     */
+    public Path getDerivativePath(String fileName, PictureSize size) {
+        return this.fileStorageLocation.resolve(DERIVATIVES_DIR)
+                .resolve(size.getDirectoryName())
+                .resolve(relativePath(fileName) + ".jpg");
+    }
+
+    private String relativePath(String fileName) {
+        if (!isBlobName(fileName)) {
+            return fileName;
+        }
+        return BLOBS_DIR + "/" + fileName.substring(0, 2) + "/" + fileName.substring(2, 4) + "/" + fileName;
+    }
+
+    /** Deletes a stored file together with its derivatives. */
+    public void deleteFile(String fileName) throws IOException {
+        Files.deleteIfExists(resolvePath(fileName));
+        for (PictureSize size : PictureSize.values()) {
+            Files.deleteIfExists(getDerivativePath(fileName, size));
+        }
+    }
+
+    /**
+     * Returns the requested derivative of a stored file, or the original when no
+     * size is given or the derivative has not been generated yet. The latter is
+     * flagged as a fallback, since the same URL will serve different bytes later.
+     */
+    public StoredFile loadStoredFile(String fileName, PictureSize size) {
+        Path filePath = resolvePath(fileName).normalize();
+        if (!filePath.startsWith(this.fileStorageLocation)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found " + fileName);
+        }
+        boolean fallback = false;
+        if (size != null) {
+            Path derivativePath = getDerivativePath(fileName, size);
+            if (Files.isRegularFile(derivativePath)) {
+                filePath = derivativePath;
             } else {
-                throw new RuntimeException("File not found " + fileName);
+                fallback = true;
             }
-        } catch (MalformedURLException ex) {
-            throw new RuntimeException("File operation error: "
-                    + fileName, ex);
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found " + fileName);
+            }
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            // fileKey (device + inode) keeps the tag distinct when files are renamed over each other
+            String eTag = "\"" + Integer.toHexString(Objects.hashCode(attributes.fileKey()))
+                    + "-" + Long.toHexString(attributes.size())
+                    + "-" + Long.toHexString(lastModified) + "\"";
+            MediaType mediaType = MediaTypeFactory.getMediaType(filePath.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+            return new StoredFile(filePath, attributes.size(), lastModified, eTag, mediaType, fallback);
+        } catch (NoSuchFileException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found " + fileName);
+        } catch (IOException ex) {
+            throw new RuntimeException("File operation error: " + fileName, ex);
+        }
+    }
+
+    public record StagedBlob(Path tempPath, String digest, long size) {
+    }
+
+    public record StoredFile(Path path, long size, long lastModified, String eTag, MediaType mediaType,
+                             boolean fallback) {
+        public Resource asResource() {
+            return new FileSystemResource(path);
         }
     }
 
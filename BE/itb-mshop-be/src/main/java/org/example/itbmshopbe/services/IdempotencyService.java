@@ -0,0 +1,224 @@
+package org.example.itbmshopbe.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.entities.IdempotencyRecord;
+import org.example.itbmshopbe.repositories.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}. The first request claims the
+ * key in the database, runs, and stores its serialized response in the same transaction
+ * as its own writes. Retries get the stored response back. A duplicate that arrives
+ * while the first is still running waits for it: in-process through a shared future,
+ * or with 409 when the first request runs on another instance.
+ * <p>
+ * The claim time doubles as an owner token: completing or releasing a key only
+ * works for the claim that is still current, so a request whose stale claim was
+ * taken over cannot overwrite the new owner's result.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    // A claim older than this without a result belongs to a request that died before committing
+    @Value("${idempotency.stale-claim-seconds:120}")
+    private long staleClaimSeconds;
+
+    @Value("${idempotency.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public record Result<T>(T body, boolean replayed) {
+    }
+
+    private record StoredResponse(String requestHash, String body) {
+    }
+
+    public <T> Result<T> execute(Integer accountId, String idempotencyKey, Object request,
+                                 TypeReference<T> responseType, Supplier<T> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters"
+            );
+        }
+        String keyHash = sha256(accountId + ":" + idempotencyKey);
+        String requestHash = sha256(toJson(request));
+
+        CompletableFuture<StoredResponse> ownFuture = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(keyHash, ownFuture);
+        if (running != null) {
+            return replay(awaitInFlight(running), requestHash, responseType);
+        }
+        try {
+            // Truncated to what claimed_at stores, so the fence compares equal
+            Instant claimedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+            StoredResponse stored = claimOrLoad(keyHash, accountId, requestHash, claimedAt);
+            if (stored != null) {
+                ownFuture.complete(stored);
+                return replay(stored, requestHash, responseType);
+            }
+            T response = runAndStore(keyHash, claimedAt, action);
+            ownFuture.complete(new StoredResponse(requestHash, toJson(response)));
+            return new Result<>(response, false);
+        } catch (RuntimeException | Error e) {
+            ownFuture.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(keyHash, ownFuture);
+        }
+    }
+
+    /** Returns the stored response of a finished request, or null once this call owns the key as of {@code now}. */
+    private StoredResponse claimOrLoad(String keyHash, Integer accountId, String requestHash, Instant now) {
+        return transactionTemplate.execute(status -> {
+            idempotencyRecordRepository.deleteIfExpired(keyHash, now);
+            if (idempotencyRecordRepository.claim(keyHash, accountId, requestHash, now,
+                    now.plus(Duration.ofHours(ttlHours))) == 1) {
+                return null;
+            }
+            IdempotencyRecord existing = idempotencyRecordRepository.findById(keyHash)
+                    .orElseThrow(() -> inProgress());
+            if (!existing.getRequestHash().equals(requestHash)) {
+                throw keyReused();
+            }
+            if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return new StoredResponse(existing.getRequestHash(), existing.getResponseBody());
+            }
+            if (idempotencyRecordRepository.takeOverStale(keyHash, requestHash, now,
+                    now.minusSeconds(staleClaimSeconds)) == 1) {
+                return null;
+            }
+            throw inProgress();
+        });
+    }
+
+    private <T> T runAndStore(String keyHash, Instant claimedAt, Supplier<T> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                T response = action.get();
+                // Another request took the claim over while this one ran; roll its writes back
+                if (idempotencyRecordRepository.complete(keyHash, claimedAt, toJson(response)) == 0) {
+                    throw inProgress();
+                }
+                return response;
+            });
+        } catch (RuntimeException | Error e) {
+            // Nothing was committed, so let a retry with the same key run again
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        idempotencyRecordRepository.release(keyHash, claimedAt));
+            } catch (RuntimeException releaseFailure) {
+                log.warn("Failed to release idempotency key after a failed request", releaseFailure);
+            }
+            throw e;
+        }
+    }
+
+    private StoredResponse awaitInFlight(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            // The duplicate sees the same outcome as the request it waited for
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Idempotent request failed", e.getCause());
+        }
+    }
+
+    private <T> Result<T> replay(StoredResponse stored, String requestHash, TypeReference<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw keyReused();
+        }
+        try {
+            return new Result<>(objectMapper.readValue(stored.body(), responseType), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int deleted;
+        do {
+            Instant now = Instant.now();
+            Integer count = transactionTemplate.execute(status ->
+                    idempotencyRecordRepository.purgeExpired(now, purgeBatchSize));
+            deleted = count == null ? 0 : count;
+        } while (deleted == purgeBatchSize);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent request", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(
+                HttpStatus.CONFLICT,
+                "A request with this Idempotency-Key is still being processed"
+        );
+    }
+
+    private static ResponseStatusException keyReused() {
+        return new ResponseStatusException(
+                HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key was already used for a different request"
+        );
+    }
+}
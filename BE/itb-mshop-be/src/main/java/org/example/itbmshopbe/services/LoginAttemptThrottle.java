@@ -0,0 +1,99 @@
+package org.example.itbmshopbe.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-window attempt counters for login and registration, checked before any
+ * password hashing so rejected requests cost nothing. Failed logins count per email
+ * and per client IP; registrations count per IP.
+ */
+@Component
+public class LoginAttemptThrottle {
+    private static final int MAX_TRACKED_KEYS = 100_000;
+
+    @Value("${auth.throttle.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${auth.throttle.max-failures-per-email:5}")
+    private int maxFailuresPerEmail;
+
+    @Value("${auth.throttle.max-failures-per-ip:20}")
+    private int maxFailuresPerIp;
+
+    @Value("${auth.throttle.max-registrations-per-ip:10}")
+    private int maxRegistrationsPerIp;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    // Replaced in tests to move past a window without sleeping
+    LongSupplier clock = System::currentTimeMillis;
+
+    public void checkLogin(String email, String clientIp) {
+        if (count("login-email:" + email.toLowerCase()) >= maxFailuresPerEmail
+                || count("login-ip:" + clientIp) >= maxFailuresPerIp) {
+            throw tooManyAttempts();
+        }
+    }
+
+    public void recordLoginFailure(String email, String clientIp) {
+        increment("login-email:" + email.toLowerCase());
+        increment("login-ip:" + clientIp);
+    }
+
+    public void recordLoginSuccess(String email) {
+        windows.remove("login-email:" + email.toLowerCase());
+    }
+
+    public void checkRegistration(String clientIp) {
+        if (count("register-ip:" + clientIp) >= maxRegistrationsPerIp) {
+            throw tooManyAttempts();
+        }
+    }
+
+    /** Counts a registration that passed validation; requests rejected as invalid are not counted. */
+    public void recordRegistration(String clientIp) {
+        if (increment("register-ip:" + clientIp) > maxRegistrationsPerIp) {
+            throw tooManyAttempts();
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = clock.getAsLong();
+        windows.values().removeIf(window -> window.isExpired(now));
+    }
+
+    private int count(String key) {
+        Window window = windows.get(key);
+        return window == null || window.isExpired(clock.getAsLong()) ? 0 : window.count();
+    }
+
+    private int increment(String key) {
+        if (windows.size() >= MAX_TRACKED_KEYS && !windows.containsKey(key)) {
+            evictExpired();
+        }
+        long now = clock.getAsLong();
+        return windows.compute(key, (k, window) -> window == null || window.isExpired(now)
+                ? new Window(now + windowSeconds * 1000, 1)
+                : new Window(window.expiresAt(), window.count() + 1)).count();
+    }
+
+    private ResponseStatusException tooManyAttempts() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Too many attempts. Please try again later.");
+    }
+
+    private record Window(long expiresAt, int count) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.itbmshopbe.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams a seller's order lines as CSV or NDJSON straight from a forward-only MySQL
+ * result set, one row at a time, so memory use does not grow with the export size.
+ * Each export holds a database connection until the client has read everything,
+ * so the number of concurrent exports is capped.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+    private static final String[] COLUMNS = {
+            "orderId", "orderDate", "paymentDate", "orderStatus", "buyerId", "buyerName",
+            "shippingAddress", "orderNote", "orderItemId", "saleItemId", "description",
+            "quantity", "priceEach", "orderTotal"
+    };
+
+    private static final String EXPORT_SQL = """
+            SELECT o.id, o.createdOn, o.PaymentDate, o.status, o.customer_id, a.nickname,
+                   o.shippingAddress, o.orderNote, oi.id, oi.sale_item_id, oi.description,
+                   oi.quantity, oi.price_each, o.total_price
+            FROM order_participant p
+            JOIN orders o ON o.id = p.order_id
+            JOIN account a ON a.id = o.customer_id
+            JOIN order_items oi ON oi.order_id = o.id
+            WHERE p.account_id = ? AND p.role = 'SELLER'
+            ORDER BY p.createdOn, p.order_id, oi.id
+            """;
+
+    // Rows per round trip for drivers that cannot stream a plain result set row by row
+    private static final int CURSOR_FETCH_SIZE = 1000;
+
+    public enum Format {
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+        NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromParam(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.export.max-concurrent:2}")
+    private int maxConcurrentExports;
+
+    private Semaphore exportPermits;
+
+    @PostConstruct
+    void init() {
+        exportPermits = new Semaphore(maxConcurrentExports);
+    }
+
+    /**
+     * Returns the body that writes the export. The body takes an export slot before
+     * it touches the database and releases it once it has finished writing, so a
+     * body that is never run cannot leak a slot.
+     */
+    public StreamingResponseBody exportSellerOrders(Integer sellerId, Format format) {
+        return outputStream -> {
+            if (!exportPermits.tryAcquire()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Too many exports running, please try again shortly");
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024)) {
+                RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+                rowWriter.writeHeader();
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(streamingFetchSize(connection));
+                    statement.setInt(1, sellerId);
+                    return statement;
+                }, (RowCallbackHandler) resultSet -> {
+                    try {
+                        rowWriter.writeRow(resultSet);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                rowWriter.finish();
+            } catch (UncheckedIOException e) {
+                // Usually the client went away mid-download
+                log.info("Order export for seller {} aborted: {}", sellerId, e.getCause().getMessage());
+            } finally {
+                exportPermits.release();
+            }
+        };
+    }
+
+    // Integer.MIN_VALUE makes Connector/J stream rows instead of buffering the whole result;
+    // other drivers reject a negative fetch size
+    private static int streamingFetchSize(Connection connection) throws SQLException {
+        return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())
+                ? Integer.MIN_VALUE
+                : CURSOR_FETCH_SIZE;
+    }
+
+    /** Reads a column as a String, Number or null, with timestamps as ISO-8601 instants. */
+    private static Object readValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant().toString();
+        }
+        if (value instanceof OffsetDateTime dateTime) {
+            return dateTime.toInstant().toString();
+        }
+        if (value instanceof Clob) {
+            return rs.getString(column);
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void writeHeader() throws IOException;
+
+        void writeRow(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = readValue(rs, i);
+                String text = value instanceof String string ? neutralizeFormula(string)
+                        : value == null ? "" : value.toString();
+                writeField(text);
+            }
+            writer.write("\r\n");
+        }
+
+        // Spreadsheets run cells starting with these as formulas; a leading quote keeps them text
+        private static String neutralizeFormula(String text) {
+            if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                return "'" + text;
+            }
+            return text;
+        }
+
+        private void writeField(String text) throws IOException {
+            boolean needsQuotes = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                    || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+            if (!needsQuotes) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                Object value = readValue(rs, i);
+                generator.writeFieldName(COLUMNS[i - 1]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.itbmshopbe.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.repositories.OrderParticipantRepository;
+import org.example.itbmshopbe.repositories.OrderRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills order_participant for orders placed before the table existed. Runs once all
+ * beans are ready but before the web server accepts requests, so no new order can
+ * slip in below the high-water mark it starts from.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderParticipantBackfill implements SmartInitializingSingleton {
+    private final OrderRepository orderRepository;
+    private final OrderParticipantRepository orderParticipantRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer afterOrderId = orderParticipantRepository.findMaxOrderId();
+        Integer inserted = transactionTemplate.execute(status -> orderRepository.backfillParticipants(afterOrderId));
+        if (inserted != null && inserted > 0) {
+            log.info("Backfilled {} order participant rows for orders after id {}", inserted, afterOrderId);
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.example.itbmshopbe.entities.*;
 
 import org.example.itbmshopbe.repositories.*;
 import org.example.itbmshopbe.utils.EntityValidatorUtil;
-import org.example.itbmshopbe.utils.OrderSpecifications;
 import org.example.itbmshopbe.utils.PagingUtil;
 import org.example.itbmshopbe.utils.ValidationUtil;
 import org.modelmapper.ModelMapper;
@@ -15,26 +14,37 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    // Width of order_items.description; a 255-char color alone would overflow it
+    private static final int DESCRIPTION_MAX_LENGTH = 255;
+
     private final OrderRepository orderRepository;
     private final AccountRepository accountRepository;
     private final SaleItemRepository saleItemRepository;
-    private final SellerRepository sellerRepository;
     private final OrderItemRepository orderItemRepository;
-    private final CartRepository cartRepository;
+    private final CartSweeper cartSweeper;
+    private final OrderParticipantRepository orderParticipantRepository;
+    private final SellerStatsService sellerStatsService;
+    private final StockReservationLedger stockReservationLedger;
+    private final SaleItemDetailCache saleItemDetailCache;
     private final ModelMapper modelMapper;
     private final PagingUtil pagingUtil;
     private final ValidationUtil validationUtil;
@@ -48,8 +58,10 @@ public class OrderService {
         Account buyer = accountRepository.findById(buyerId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Buyer not found"));
 
+        Map<Integer, SaleItem> saleItems = loadSaleItems(orderRequestDto.getOrderItems());
         Map<Integer, List<OrderItemRequestDto>> itemsBySeller = groupItemsBySeller(
                 orderRequestDto.getOrderItems(),
+                saleItems,
                 buyerId
         );
 
@@ -58,30 +70,47 @@ public class OrderService {
 
         for (Map.Entry<Integer, List<OrderItemRequestDto>> entry : itemsBySeller.entrySet()) {
             OrderResponseDto<OrderSellerResponseDto> orderResponse = createOrderForSeller(
-                    entry.getKey(),
                     entry.getValue(),
+                    saleItems,
                     buyer,
                     orderRequestDto,
                     successfulSaleItemIds
             );
             createdOrders.add(orderResponse);
         }
-        removeSuccessfulItemsFromCart(buyerId, successfulSaleItemIds);
+        cartSweeper.purgeOrderedAfterCommit(buyerId, successfulSaleItemIds);
         return createdOrders;
     }
 
+    private Map<Integer, SaleItem> loadSaleItems(List<OrderItemRequestDto> orderItems) {
+        Set<Integer> saleItemIds = orderItems.stream()
+                .map(OrderItemRequestDto::getSaleItemId)
+                .collect(Collectors.toSet());
+
+        Map<Integer, SaleItem> saleItems = saleItemRepository.findAllWithBrandAndSellerByIdIn(saleItemIds)
+                .stream()
+                .collect(Collectors.toMap(SaleItem::getId, Function.identity()));
+
+        for (OrderItemRequestDto itemDto : orderItems) {
+            if (!saleItems.containsKey(itemDto.getSaleItemId())) {
+                throw new ResponseStatusException(
+                        HttpStatus.NOT_FOUND,
+                        "SaleItem not found: " + itemDto.getSaleItemId()
+                );
+            }
+        }
+        return saleItems;
+    }
+
     private Map<Integer, List<OrderItemRequestDto>> groupItemsBySeller(
             List<OrderItemRequestDto> orderItems,
+            Map<Integer, SaleItem> saleItems,
             Integer buyerId
     ) {
         Map<Integer, List<OrderItemRequestDto>> itemsBySeller = new HashMap<>();
 
         for (OrderItemRequestDto itemDto : orderItems) {
-            SaleItem saleItem = saleItemRepository.findById(itemDto.getSaleItemId())
-                    .orElseThrow(() -> new ResponseStatusException(
-                            HttpStatus.NOT_FOUND,
-                            "SaleItem not found: " + itemDto.getSaleItemId()
-                    ));
+            SaleItem saleItem = saleItems.get(itemDto.getSaleItemId());
             if (Boolean.TRUE.equals(saleItem.getDeleted())) {
                 throw new ResponseStatusException(
                         HttpStatus.BAD_REQUEST,
@@ -102,30 +131,36 @@ public class OrderService {
     }
 
     private OrderResponseDto<OrderSellerResponseDto> createOrderForSeller(
-            Integer sellerId,
             List<OrderItemRequestDto> sellerItems,
+            Map<Integer, SaleItem> saleItems,
             Account buyer,
             OrderRequestDto orderRequestDto,
             List<Integer> successfulSaleItemIds
     ) {
-        boolean isStockSufficient = checkStockAvailability(sellerItems);
-
-        Seller seller = sellerRepository.findById(sellerId)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND,
-                        "Seller not found: " + sellerId
-                ));
+        boolean isStockSufficient = checkStockAvailability(sellerItems, saleItems)
+                && reserveStock(sellerItems);
+        Seller seller = saleItems.get(sellerItems.get(0).getSaleItemId()).getSeller();
 
         Order order = createOrder(buyer, orderRequestDto, isStockSufficient);
+        order.setTotalPrice(sellerItems.stream().mapToInt(item -> item.getPrice() * item.getQuantity()).sum());
+        order.setItemCount(sellerItems.stream().mapToInt(OrderItemRequestDto::getQuantity).sum());
         Order savedOrder = orderRepository.save(order);
+        orderParticipantRepository.saveAll(List.of(
+                createParticipant(savedOrder, buyer, OrderParticipant.Role.BUYER),
+                createParticipant(savedOrder, seller.getAccount(), OrderParticipant.Role.SELLER)
+        ));
 
         List<OrderItem> orderItems = createOrderItems(
                 savedOrder,
                 sellerItems,
+                saleItems,
                 isStockSufficient,
                 successfulSaleItemIds
         );
         orderItemRepository.saveAll(orderItems);
+        if (isStockSufficient) {
+            sellerStatsService.recordSale(seller.getId(), savedOrder, orderItems);
+        }
 
         OrderSellerResponseDto sellerDto = mapToSellerBase(seller);
         List<OrderItemRequestDto> responseItems = mapOrderItems(orderItems);
@@ -133,16 +168,54 @@ public class OrderService {
         return mapOrderToResponse(savedOrder, List.of(sellerDto), responseItems);
     }
 
-    private boolean checkStockAvailability(List<OrderItemRequestDto> items) {
+    private boolean checkStockAvailability(List<OrderItemRequestDto> items, Map<Integer, SaleItem> saleItems) {
+        Map<Integer, Integer> requestedQuantities = new HashMap<>();
         for (OrderItemRequestDto itemDto : items) {
-            SaleItem saleItem = saleItemRepository.findById(itemDto.getSaleItemId()).get();
-            if (saleItem.getQuantity() < itemDto.getQuantity()) {
+            requestedQuantities.merge(itemDto.getSaleItemId(), itemDto.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<Integer, Integer> entry : requestedQuantities.entrySet()) {
+            // Hot items are checked against the in-memory ledger, their row lags behind
+            if (stockReservationLedger.isHot(entry.getKey())) {
+                continue;
+            }
+            if (saleItems.get(entry.getKey()).getQuantity() < entry.getValue()) {
                 return false;
             }
         }
         return true;
     }
 
+    private boolean reserveStock(List<OrderItemRequestDto> items) {
+        // Sorted by id so concurrent checkouts lock the same rows in the same order
+        Map<Integer, Integer> requestedQuantities = new TreeMap<>();
+        for (OrderItemRequestDto itemDto : items) {
+            requestedQuantities.merge(itemDto.getSaleItemId(), itemDto.getQuantity(), Integer::sum);
+        }
+
+        List<Runnable> releases = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : requestedQuantities.entrySet()) {
+            Integer saleItemId = entry.getKey();
+            Integer quantity = entry.getValue();
+            if (stockReservationLedger.isHot(saleItemId)) {
+                StockReservationLedger.Reservation reservation =
+                        stockReservationLedger.tryReserve(saleItemId, quantity);
+                if (reservation == null) {
+                    releases.forEach(Runnable::run);
+                    return false;
+                }
+                releases.add(reservation::release);
+            } else {
+                if (saleItemRepository.reserveStock(saleItemId, quantity) == 0) {
+                    releases.forEach(Runnable::run);
+                    return false;
+                }
+                releases.add(() -> saleItemRepository.releaseStock(saleItemId, quantity));
+            }
+        }
+        saleItemDetailCache.invalidate(requestedQuantities.keySet());
+        return true;
+    }
+
     private Order createOrder(Account buyer, OrderRequestDto dto, boolean isStockSufficient) {
         Order order = new Order();
         order.setCustomer(buyer);
@@ -152,20 +225,28 @@ public class OrderService {
         return order;
     }
 
+    private OrderParticipant createParticipant(Order order, Account account, OrderParticipant.Role role) {
+        OrderParticipant participant = new OrderParticipant();
+        participant.setOrder(order);
+        participant.setAccount(account);
+        participant.setRole(role);
+        participant.setCreatedOn(order.getCreatedOn());
+        return participant;
+    }
+
     private List<OrderItem> createOrderItems(
             Order order,
             List<OrderItemRequestDto> items,
+            Map<Integer, SaleItem> saleItems,
             boolean isStockSufficient,
             List<Integer> successfulSaleItemIds
     ) {
         List<OrderItem> orderItems = new ArrayList<>();
 
         for (OrderItemRequestDto itemDto : items) {
-            SaleItem saleItem = saleItemRepository.findById(itemDto.getSaleItemId()).get();
+            SaleItem saleItem = saleItems.get(itemDto.getSaleItemId());
 
             if (isStockSufficient) {
-                saleItem.setQuantity(saleItem.getQuantity() - itemDto.getQuantity());
-                saleItemRepository.save(saleItem);
                 successfulSaleItemIds.add(saleItem.getId());
             }
 
@@ -174,24 +255,16 @@ public class OrderService {
             orderItem.setSaleItem(saleItem);
             orderItem.setQuantity(itemDto.getQuantity());
             orderItem.setPriceEach(itemDto.getPrice());
+            orderItem.setDescription(describe(saleItem));
+            orderItem.setBrandName(saleItem.getBrand().getName());
+            orderItem.setSellerId(saleItem.getSeller().getId());
+            orderItem.setSellerNickname(saleItem.getSeller().getAccount().getNickname());
             orderItems.add(orderItem);
         }
 
         return orderItems;
     }
 
-    private void removeSuccessfulItemsFromCart(Integer buyerId, List<Integer> saleItemIds) {
-        if (!saleItemIds.isEmpty()) {
-            List<Cart> cartItemsToRemove = cartRepository.findByAccountIdAndSaleItemIdIn(
-                    buyerId,
-                    saleItemIds
-            );
-            if (!cartItemsToRemove.isEmpty()) {
-                cartRepository.deleteAll(cartItemsToRemove);
-            }
-        }
-    }
-
     private <T> OrderResponseDto<T> mapOrderToResponse(Order order,
                                                        List<T> sellerDtos,
                                                        List<OrderItemRequestDto> orderItems) {
@@ -221,22 +294,60 @@ public class OrderService {
     }
 
 
+    private String describe(SaleItem saleItem) {
+        String storage = saleItem.getStorageGb() != null
+                ? saleItem.getStorageGb() + "GB"
+                : "-";
+        String color = saleItem.getColor() != null ? saleItem.getColor() : "-";
+        String description = saleItem.getBrand().getName() + " " + saleItem.getModel() + " (" + storage + " " + color + ")";
+        return description.length() > DESCRIPTION_MAX_LENGTH
+                ? description.substring(0, DESCRIPTION_MAX_LENGTH)
+                : description;
+    }
+
+    // Listing views read the checkout snapshot only; lines from before the snapshot columns fall back to the catalog
+    private List<OrderItemRequestDto> mapSnapshotItems(List<OrderItem> orderItems) {
+        return orderItems.stream().map(oi -> {
+            if (oi.getDescription() == null) {
+                return mapOrderItems(List.of(oi)).get(0);
+            }
+            OrderItemRequestDto dto = new OrderItemRequestDto();
+            dto.setId(oi.getId());
+            dto.setSaleItemId(oi.getSaleItem().getId());
+            dto.setPrice(oi.getPriceEach());
+            dto.setQuantity(oi.getQuantity());
+            dto.setDescription(oi.getDescription());
+            return dto;
+        }).toList();
+    }
+
+    private List<OrderSellerResponseDto> mapSnapshotSellers(List<OrderItem> orderItems) {
+        Map<Integer, OrderSellerResponseDto> sellers = new LinkedHashMap<>();
+        for (OrderItem oi : orderItems) {
+            if (oi.getSellerId() == null) {
+                Seller seller = oi.getSaleItem().getSeller();
+                sellers.computeIfAbsent(seller.getId(), id -> mapToSellerBase(seller));
+                continue;
+            }
+            sellers.computeIfAbsent(oi.getSellerId(), id -> {
+                OrderSellerResponseDto dto = new OrderSellerResponseDto();
+                dto.setId(id);
+                dto.setSellerName(oi.getSellerNickname());
+                return dto;
+            });
+        }
+        return List.copyOf(sellers.values());
+    }
+
     private List<OrderItemRequestDto> mapOrderItems(List<OrderItem> orderItems) {
         return orderItems.stream().map(oi -> {
             OrderItemRequestDto dto = modelMapper.map(oi, OrderItemRequestDto.class);
             SaleItem saleItem = oi.getSaleItem();
-            String brandName = saleItem.getBrand().getName();
-            String model = saleItem.getModel();
-            String storage = saleItem.getStorageGb() != null
-                    ? saleItem.getStorageGb() + "GB"
-                    : "-";
-            String color = saleItem.getColor() != null ? saleItem.getColor() : "-";
-
             String deletedIndicator = Boolean.TRUE.equals(saleItem.getDeleted())
                     ? " [REMOVE]"
                     : "";
 
-            dto.setDescription(brandName + " " + model + " (" + storage + " " + color + ")" + deletedIndicator);
+            dto.setDescription(describe(saleItem) + deletedIndicator);
             dto.setSaleItemId(saleItem.getId());
             dto.setPrice(saleItem.getPrice());
             return dto;
@@ -281,32 +392,36 @@ public class OrderService {
             );
         }
         Pageable pageable = pagingUtil.createPageable(page, size, sortField, sortDirection, "createdOn");
-        Specification<Order> spec = Specification.where(OrderSpecifications.belongsToAccount(currentUserId));
-        Page<Order> ordersPage = orderRepository.findAll(spec, pageable);
+        Page<Integer> orderIdsPage = findOrderIdsForAccount(currentUserId, pageable);
+        List<Order> orders = loadOrdersInPageOrder(orderIdsPage.getContent());
 
-        List<OrderResponseDto<OrderSellerResponseDto>> orderResponse = ordersPage.getContent().stream()
+        List<OrderResponseDto<OrderSellerResponseDto>> orderResponse = orders.stream()
                 .map(order -> {
-                    List<Seller> sellers = order.getOrderItems().stream()
-                            .map(oi -> oi.getSaleItem().getSeller())
-                            .distinct()
-                            .toList();
-                    List<OrderSellerResponseDto> sellerResponses = sellers.stream()
-                            .map(this::mapToSellerBase)
-                            .toList();
-                    List<OrderItemRequestDto> orderItems = mapOrderItems(order.getOrderItems());
-                    return mapOrderToResponse(order, sellerResponses, orderItems);
+                    OrderResponseDto<OrderSellerResponseDto> dto = new OrderResponseDto<>();
+                    dto.setId(order.getId());
+                    dto.setBuyerId(order.getCustomer().getId());
+                    dto.setSeller(mapSnapshotSellers(order.getOrderItems()));
+                    dto.setOrderDate(order.getCreatedOn());
+                    dto.setPaymentDate(order.getPaymentDate());
+                    dto.setShippingAddress(order.getShippingAddress());
+                    dto.setOrderNote(order.getOrderNote());
+                    dto.setOrderItems(mapSnapshotItems(order.getOrderItems()));
+                    dto.setTotalPrice(order.getTotalPrice());
+                    dto.setItemCount(order.getItemCount());
+                    dto.setOrderStatus(order.getStatus());
+                    return dto;
                 }).toList();
 
         OrderPagedResponseDto<OrderSellerResponseDto> response = new OrderPagedResponseDto<>();
         response.setContent(orderResponse);
-        response.setPage(ordersPage.getNumber());
-        response.setSize(ordersPage.getSize());
-        response.setTotalElements(ordersPage.getTotalElements());
-        response.setTotalPages(ordersPage.getTotalPages());
-        response.setFirst(ordersPage.isFirst());
-        response.setLast(ordersPage.isLast());
-        response.setSort(ordersPage.getSort().isSorted()
-                ? ordersPage.getSort().toString().replace(": ", ":")
+        response.setPage(orderIdsPage.getNumber());
+        response.setSize(orderIdsPage.getSize());
+        response.setTotalElements(orderIdsPage.getTotalElements());
+        response.setTotalPages(orderIdsPage.getTotalPages());
+        response.setFirst(orderIdsPage.isFirst());
+        response.setLast(orderIdsPage.isLast());
+        response.setSort(pageable.getSort().isSorted()
+                ? pageable.getSort().toString().replace(": ", ":")
                 : null);
         return response;
     }
@@ -327,10 +442,9 @@ public class OrderService {
         }
 
         Pageable pageable = pagingUtil.createPageable(page, size, sortField, sortDirection, "createdOn");
-        Specification<Order> spec = Specification.where(OrderSpecifications.belongsToAccount(sellerId));
-        Page<Order> ordersPage = orderRepository.findAll(spec, pageable);
+        List<Order> orders = loadOrdersInPageOrder(findOrderIdsForAccount(sellerId, pageable).getContent());
 
-        return ordersPage.getContent().stream().map(order -> {
+        return orders.stream().map(order -> {
             OrderSellerViewResponseDto dto = new OrderSellerViewResponseDto();
             dto.setId(order.getId());
             dto.setSellerId(sellerId);
@@ -339,7 +453,9 @@ public class OrderService {
             dto.setShippingAddress(order.getShippingAddress());
             dto.setOrderNote(order.getOrderNote());
             dto.setOrderStatus(order.getStatus());
-            dto.setOrderItems(mapOrderItems(order.getOrderItems()));
+            dto.setOrderItems(mapSnapshotItems(order.getOrderItems()));
+            dto.setTotalPrice(order.getTotalPrice());
+            dto.setItemCount(order.getItemCount());
 
             BuyerInfoDto buyerInfo = new BuyerInfoDto();
             buyerInfo.setId(order.getCustomer().getId());
@@ -349,4 +465,27 @@ public class OrderService {
             return dto;
         }).toList();
     }
+
+    // Pages over order_participant, translating the Order sort onto it; createdOn is copied there
+    private Page<Integer> findOrderIdsForAccount(Integer accountId, Pageable pageable) {
+        List<Sort.Order> participantSort = new ArrayList<>();
+        Sort.Direction tieBreakDirection = Sort.Direction.DESC;
+        for (Sort.Order order : pageable.getSort()) {
+            String property = "createdOn".equals(order.getProperty()) ? "createdOn" : "order." + order.getProperty();
+            participantSort.add(new Sort.Order(order.getDirection(), property));
+            tieBreakDirection = order.getDirection();
+        }
+        participantSort.add(new Sort.Order(tieBreakDirection, "order.id"));
+        Pageable participantPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(participantSort));
+        return orderParticipantRepository.findOrderIdsByAccountId(accountId, participantPageable);
+    }
+
+    private List<Order> loadOrdersInPageOrder(List<Integer> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Order> ordersById = orderRepository.findAllWithItemsByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return orderIds.stream().map(ordersById::get).filter(Objects::nonNull).toList();
+    }
 }
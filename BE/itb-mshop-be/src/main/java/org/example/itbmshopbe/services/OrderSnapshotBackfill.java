@@ -0,0 +1,31 @@
+package org.example.itbmshopbe.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.repositories.OrderRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the checkout snapshot columns of orders placed before they existed, so order
+ * history stops falling back to the catalog for them. Only rows still NULL are touched,
+ * which makes it safe to run on every startup; lines whose sale item is gone keep the
+ * fallback.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSnapshotBackfill implements SmartInitializingSingleton {
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer lines = transactionTemplate.execute(status -> orderRepository.backfillItemSnapshots());
+        Integer orders = transactionTemplate.execute(status -> orderRepository.backfillTotals());
+        if ((lines != null && lines > 0) || (orders != null && orders > 0)) {
+            log.info("Backfilled snapshots of {} order lines and totals of {} orders", lines, orders);
+        }
+    }
+}
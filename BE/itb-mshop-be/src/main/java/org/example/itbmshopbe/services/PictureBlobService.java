@@ -0,0 +1,97 @@
+package org.example.itbmshopbe.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.repositories.PictureBlobRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+import static org.example.itbmshopbe.utils.TransactionUtil.afterCommit;
+import static org.example.itbmshopbe.utils.TransactionUtil.afterRollback;
+import static org.example.itbmshopbe.utils.TransactionUtil.requiresNew;
+
+/**
+ * Content-addressed picture storage. Each distinct upload is written once under its
+ * SHA-256 digest and shared by every SaleItemPicture that uses it; picture_blob.ref_count
+ * tracks the users and the file is removed when the last one lets go.
+ * <p>
+ * The reference is taken before the file is published, and the collector deletes the
+ * row and the file in one transaction, so a concurrent upload of the same content
+ * either keeps the blob alive or re-creates it. If the caller's transaction rolls
+ * back, the reference goes with it and the blob is collected the same way.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PictureBlobService {
+    private final PictureBlobRepository pictureBlobRepository;
+    private final FileService fileService;
+    private final PlatformTransactionManager transactionManager;
+
+    /** Stores the upload (or reuses an identical blob) and returns the file name to save on the picture. */
+    public String store(MultipartFile file) throws IOException {
+        FileService.StagedBlob staged = fileService.stageBlob(file);
+        try {
+            String extension = fileService.getFileExtension(file.getOriginalFilename()).toLowerCase();
+            String fileName = staged.digest() + (extension.isEmpty() ? "" : "." + extension);
+            pictureBlobRepository.acquire(staged.digest(), fileName, staged.size());
+            // An identical blob uploaded earlier may carry a different extension
+            String storedName = pictureBlobRepository.findFileNameByDigest(staged.digest());
+            fileService.publishBlob(staged, storedName);
+            afterRollback(() -> collectAfterRollback(staged.digest(), storedName, staged.size()));
+            return storedName;
+        } finally {
+            fileService.discardStaged(staged);
+        }
+    }
+
+    /**
+     * Drops one reference to the picture file. Files stored by name before blobs
+     * existed are deleted directly. Either way the file goes only after commit.
+     */
+    public void release(String fileName) {
+        String digest = fileService.getBlobDigest(fileName);
+        if (digest == null) {
+            afterCommit(() -> deleteQuietly(fileName));
+            return;
+        }
+        pictureBlobRepository.release(digest);
+        afterCommit(() -> collect(digest));
+    }
+
+    private void collect(String digest) {
+        requiresNew(transactionManager).executeWithoutResult(status -> {
+            String fileName = pictureBlobRepository.findFileNameByDigest(digest);
+            if (fileName != null && pictureBlobRepository.deleteIfUnreferenced(digest) == 1) {
+                deleteQuietly(fileName);
+            }
+        });
+    }
+
+    // The rolled-back row may never have existed for others, so lock it through acquire before collecting
+    private void collectAfterRollback(String digest, String fileName, long size) {
+        try {
+            requiresNew(transactionManager).executeWithoutResult(status -> {
+                pictureBlobRepository.acquire(digest, fileName, size);
+                pictureBlobRepository.release(digest);
+                String storedName = pictureBlobRepository.findFileNameByDigest(digest);
+                if (pictureBlobRepository.deleteIfUnreferenced(digest) == 1) {
+                    deleteQuietly(storedName);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to collect picture blob {} after rollback", digest, e);
+        }
+    }
+
+    private void deleteQuietly(String fileName) {
+        try {
+            fileService.deleteFile(fileName);
+        } catch (IOException e) {
+            log.warn("Failed to delete picture file {}", fileName, e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.itbmshopbe.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.entities.SaleItemPicture;
+import org.example.itbmshopbe.repositories.SaleItemPictureRepository;
+import org.example.itbmshopbe.utils.PictureSize;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Generates the fixed-size JPEG derivatives of uploaded pictures on the image
+ * worker pool, after the upload transaction has committed. Pictures the pool
+ * skipped (queue full, I/O error, restart) are picked up again by a periodic pass.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PictureDerivativeService {
+    private final SaleItemPictureRepository saleItemPictureRepository;
+    private final FileService fileService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${image.derivatives.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${image.derivatives.max-pixels:24000000}")
+    private long maxPixels;
+
+    @Value("${image.derivatives.retry-batch-size:50}")
+    private int retryBatchSize;
+
+    @Value("${image.derivatives.retry-grace-seconds:600}")
+    private long retryGraceSeconds;
+
+    @Async("imageTaskExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPicturesStored(PicturesStoredEvent event) {
+        for (Integer pictureId : event.pictureIds()) {
+            saleItemPictureRepository.findById(pictureId).ifPresent(this::generateDerivatives);
+        }
+    }
+
+    /**
+     * Requeues pictures that still have no derivatives after the grace period. Goes
+     * through the same async listener, so a full queue just defers them to the next pass.
+     */
+    @Scheduled(fixedDelayString = "${image.derivatives.retry-interval-ms:600000}")
+    public void retryMissingDerivatives() {
+        Instant createdBefore = Instant.now().minus(Duration.ofSeconds(retryGraceSeconds));
+        List<Integer> pictureIds = saleItemPictureRepository
+                .findIdsWithoutDerivatives(createdBefore, PageRequest.ofSize(retryBatchSize));
+        if (!pictureIds.isEmpty()) {
+            log.info("Requeueing {} pictures without derivatives", pictureIds.size());
+            eventPublisher.publishEvent(new PicturesStoredEvent(pictureIds));
+        }
+    }
+
+    private void generateDerivatives(SaleItemPicture picture) {
+        String fileName = picture.getNewPictureName();
+        try {
+            // Blobs are shared, so another picture may have produced the derivatives already
+            boolean generated = Arrays.stream(PictureSize.values())
+                    .allMatch(size -> Files.isRegularFile(fileService.getDerivativePath(fileName, size)));
+            if (generated) {
+                saleItemPictureRepository.markDerivativesCreated(picture.getId(), Instant.now());
+                return;
+            }
+            Path original = fileService.resolvePath(fileName);
+            BufferedImage source = Files.isRegularFile(original) ? decode(original) : null;
+            if (source == null) {
+                // Marked anyway so the retry pass does not pick it up again; the original keeps being served
+                log.warn("Cannot decode picture {}, serving it without derivatives", fileName);
+                saleItemPictureRepository.markDerivativesCreated(picture.getId(), Instant.now());
+                return;
+            }
+            for (PictureSize size : PictureSize.values()) {
+                writeJpeg(resize(source, size.getMaxEdge()), fileService.getDerivativePath(fileName, size));
+            }
+            saleItemPictureRepository.markDerivativesCreated(picture.getId(), Instant.now());
+        } catch (IOException e) {
+            log.warn("Failed to generate derivatives for picture {}", fileName, e);
+        }
+    }
+
+    /**
+     * Decodes the picture, subsampling anything above the pixel cap. The header is read
+     * first, so a small file declaring huge dimensions never gets a full-size raster.
+     */
+    private BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (pixels > maxPixels) {
+                    int step = (int) Math.ceil(Math.sqrt((double) pixels / maxPixels));
+                    log.info("Picture {} has {} pixels, decoding every {}th row and column", file.getFileName(), pixels, step);
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int maxEdge) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // Halve step by step: a single bilinear pass from a large original aliases badly
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        // JPEG has no alpha channel, so transparent areas are flattened onto white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        // Write next to the target and swap in, so readers never see a partial file
+        Path temp = Files.createTempFile(target.getParent(), "derivative", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
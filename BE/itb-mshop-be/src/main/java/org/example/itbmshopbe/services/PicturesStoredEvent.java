@@ -0,0 +1,7 @@
+package org.example.itbmshopbe.services;
+
+import java.util.List;
+
+/** Published when picture files are written, so their derivatives can be generated. */
+public record PicturesStoredEvent(List<Integer> pictureIds) {
+}
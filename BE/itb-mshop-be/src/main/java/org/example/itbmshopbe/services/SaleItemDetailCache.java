@@ -0,0 +1,56 @@
+package org.example.itbmshopbe.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemDetailWithImagesDto;
+import org.example.itbmshopbe.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static org.example.itbmshopbe.utils.TransactionUtil.afterCommit;
+
+/**
+ * Caches the assembled product page DTO per sale item. Writes to the item or its
+ * pictures evict the entry after commit; the TTL bounds staleness for changes
+ * made elsewhere, such as a seller renaming their account.
+ */
+@Component
+@RequiredArgsConstructor
+public class SaleItemDetailCache {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sale-item.detail-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${sale-item.detail-cache.max-size:10000}")
+    private int maxSize;
+
+    private TtlCache<Integer, SaleItemDetailWithImagesDto> details;
+
+    @PostConstruct
+    void init() {
+        details = new TtlCache<>(Duration.ofSeconds(ttlSeconds), maxSize);
+        details.registerMetrics(meterRegistry, "saleItemDetails");
+    }
+
+    public SaleItemDetailWithImagesDto get(Integer saleItemId, Supplier<SaleItemDetailWithImagesDto> loader) {
+        return details.getOrLoad(saleItemId, loader);
+    }
+
+    public void invalidate(Integer saleItemId) {
+        afterCommit(() -> details.invalidate(saleItemId));
+    }
+
+    public void invalidate(Collection<Integer> saleItemIds) {
+        afterCommit(() -> saleItemIds.forEach(details::invalidate));
+    }
+
+    public void invalidateAll() {
+        afterCommit(details::invalidateAll);
+    }
+}
@@ -8,14 +8,12 @@ import org.example.itbmshopbe.entities.SaleItemPicture;
 import org.example.itbmshopbe.repositories.SaleItemPictureRepository;
 import org.example.itbmshopbe.repositories.SaleItemRepository;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,8 +24,12 @@ public class SaleItemPictureService {
     private final SaleItemPictureRepository saleItemPictureRepository;
     private final SaleItemRepository saleItemRepository;
     private final FileService fileService;
+    private final PictureBlobService pictureBlobService;
     private final ModelMapper modelMapper;
+    private final SaleItemDetailCache saleItemDetailCache;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public List<SaleItemPictureResponseDTO> storePicture(
             Integer saleItemId,
             List<MultipartFile> files
@@ -42,7 +44,7 @@ public class SaleItemPictureService {
 
             String newFileName;
             try {
-                newFileName = fileService.storeFile(file, saleItemId, i + 1,false);
+                newFileName = pictureBlobService.store(file);
             } catch (IOException e) {
                 throw new RuntimeException("Failed to store file " + oldName, e);
             }
@@ -51,6 +53,7 @@ public class SaleItemPictureService {
             picture.setSaleItem(saleItem);
             picture.setOldPictureName(oldName);
             picture.setNewPictureName(newFileName);
+            picture.setBlobDigest(fileService.getBlobDigest(newFileName));
             picture.setFileSizeBytes((int) file.getSize());
             picture.setDisplayOrder(i + 1);
             picture.setCreatedOn(Instant.now());
@@ -58,6 +61,9 @@ public class SaleItemPictureService {
         }
 
         List<SaleItemPicture> savedPictures = (List<SaleItemPicture>) saleItemPictureRepository.saveAll(picturesToSave);
+        saleItemDetailCache.invalidate(saleItemId);
+        eventPublisher.publishEvent(new PicturesStoredEvent(
+                savedPictures.stream().map(SaleItemPicture::getId).toList()));
 
         return savedPictures.stream()
                 .map(picture -> modelMapper.map(picture, SaleItemPictureResponseDTO.class))
@@ -65,6 +71,7 @@ public class SaleItemPictureService {
     }
     @Transactional
     public void updatePictureByDisplayOrder(Integer saleItemId, List<SaleItemPictureRequest> pictures) {
+        saleItemDetailCache.invalidate(saleItemId);
         List<SaleItemPicture> existingPictures = saleItemPictureRepository.findBySaleItemId(saleItemId);
         for (SaleItemPictureRequest pictureReq : pictures) {
             String status = pictureReq.getStatus();
@@ -106,22 +113,7 @@ public class SaleItemPictureService {
             newOrder = pictureReq.getOrder();
             for (SaleItemPicture picture : existingPictures) {
                 if (picture.getDisplayOrder() >= newOrder) {
-                    int oldOrder = picture.getDisplayOrder();
-                    int newShiftedOrder = oldOrder + 1;
-
-                    // Gen new picture name base on order
-                    String extension = fileService.getFileExtension(picture.getNewPictureName());
-                    String newFileName = saleItemId + "_" + newShiftedOrder + (extension.isEmpty() ? "" : "." + extension);
-
-                    Path oldPath = fileService.getFileStorageLocation().resolve(picture.getNewPictureName());
-                    Path newPath = fileService.getFileStorageLocation().resolve(newFileName);
-                    try {
-                        Files.move(oldPath, newPath,StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to rename file " + oldPath + " → " + newPath, e);
-                    }
-                    picture.setDisplayOrder(newShiftedOrder);
-                    picture.setNewPictureName(newFileName);
+                    picture.setDisplayOrder(picture.getDisplayOrder() + 1);
                     saleItemPictureRepository.save(picture);
                 }
             }
@@ -129,7 +121,7 @@ public class SaleItemPictureService {
 
         String newPictureName;
         try {
-            newPictureName = fileService.storeFile(pictureReq.getPictureFile(), saleItemId, newOrder,false);
+            newPictureName = pictureBlobService.store(pictureReq.getPictureFile());
         } catch (IOException e) {
             throw new RuntimeException("Failed to add file " + pictureReq.getPictureFile(), e);
         }
@@ -141,10 +133,12 @@ public class SaleItemPictureService {
         newSaleItemPicture.setSaleItem(saleItem);
         newSaleItemPicture.setOldPictureName(pictureReq.getPictureFile().getOriginalFilename());
         newSaleItemPicture.setNewPictureName(newPictureName);
+        newSaleItemPicture.setBlobDigest(fileService.getBlobDigest(newPictureName));
         newSaleItemPicture.setFileSizeBytes((int) pictureReq.getPictureFile().getSize());
         newSaleItemPicture.setDisplayOrder(newOrder);
         newSaleItemPicture.setCreatedOn(Instant.now());
         saleItemPictureRepository.save(newSaleItemPicture);
+        eventPublisher.publishEvent(new PicturesStoredEvent(List.of(newSaleItemPicture.getId())));
     }
 
 
@@ -154,36 +148,14 @@ public class SaleItemPictureService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("No picture found for order"));
 
-        Path filePath = fileService.getFileStorageLocation().resolve(toRemove.getNewPictureName());
-        try {
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete file " + toRemove.getNewPictureName(), e);
-        }
-
+        pictureBlobService.release(toRemove.getNewPictureName());
         saleItemPictureRepository.delete(toRemove);
 
         existingPictures.stream()
                 .filter(pic -> pic.getDisplayOrder() > toRemove.getDisplayOrder())
                 .sorted((a, b) -> a.getDisplayOrder().compareTo(b.getDisplayOrder())) // lowest → highest
                 .forEach(picture -> {
-                    int oldOrder = picture.getDisplayOrder();
-                    int newOrder = oldOrder - 1;
-
-                    String extension = fileService.getFileExtension(picture.getNewPictureName());
-                    String newFileName = picture.getSaleItem().getId() + "_" + newOrder + (extension.isEmpty() ? "" : "." + extension);
-
-                    Path oldPath = fileService.getFileStorageLocation().resolve(picture.getNewPictureName());
-                    Path newPath = fileService.getFileStorageLocation().resolve(newFileName);
-
-                    try {
-                        Files.move(oldPath, newPath, StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to rename file " + oldPath + " → " + newPath, e);
-                    }
-
-                    picture.setDisplayOrder(newOrder);
-                    picture.setNewPictureName(newFileName);
+                    picture.setDisplayOrder(picture.getDisplayOrder() - 1);
                     saleItemPictureRepository.save(picture);
                 });
     }
@@ -193,21 +165,19 @@ public class SaleItemPictureService {
         SaleItemPicture toRePlace =existingPicture.stream()
                 .filter(pic -> pic.getDisplayOrder().equals(pictureRequest.getOrder())).findFirst()
                 .orElseThrow(() -> new RuntimeException("No picture found for order"));
-        Path oldFilePath = fileService.getFileStorageLocation().resolve(toRePlace.getNewPictureName());
-        try {
-            Files.deleteIfExists(oldFilePath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete file " + toRePlace.getNewPictureName(), e);
-        }
         String newFileName;
         try {
-            newFileName = fileService.storeFile(pictureRequest.getPictureFile(),saleItemId, pictureRequest.getOrder(),false);
+            newFileName = pictureBlobService.store(pictureRequest.getPictureFile());
         }catch (IOException e) {
             throw new RuntimeException("Failed to replace file " + pictureRequest.getPictureFile(), e);
         }
+        pictureBlobService.release(toRePlace.getNewPictureName());
         toRePlace.setOldPictureName(pictureRequest.getPictureFile().getOriginalFilename());
         toRePlace.setNewPictureName(newFileName);
+        toRePlace.setBlobDigest(fileService.getBlobDigest(newFileName));
         toRePlace.setFileSizeBytes((int) pictureRequest.getPictureFile().getSize());
+        toRePlace.setDerivativesCreatedOn(null);
         saleItemPictureRepository.save(toRePlace);
+        eventPublisher.publishEvent(new PicturesStoredEvent(List.of(toRePlace.getId())));
     }
 }
@@ -1,6 +1,8 @@
 package org.example.itbmshopbe.services;
 
+import jakarta.persistence.Tuple;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.itbmshopbe.dtos.SaleItemDTO.*;
 import org.example.itbmshopbe.entities.Brand;
 import org.example.itbmshopbe.entities.SaleItem;
@@ -14,13 +16,19 @@ import org.example.itbmshopbe.repositories.SellerRepository;
 import org.example.itbmshopbe.utils.ListMapper;
 import org.example.itbmshopbe.utils.SaleItemSpecifications;
 import org.example.itbmshopbe.utils.SaleItemUtil;
+import org.example.itbmshopbe.utils.TtlCache;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,14 +36,22 @@ import org.springframework.web.server.ResponseStatusException;
 
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 
 import static org.example.itbmshopbe.utils.Util.trimFirstAndLastSentence;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SaleItemService {
@@ -47,6 +63,50 @@ public class SaleItemService {
     private final ListMapper listMapper;
     private final ModelMapper modelMapper;
     private final FileService fileService;
+    private final StockReservationLedger stockReservationLedger;
+    private final BrandCache brandCache;
+    private final SaleItemDetailCache saleItemDetailCache;
+    private final CartSweeper cartSweeper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${search.fulltext.enabled:false}")
+    private volatile boolean fullTextSearchEnabled;
+
+    @Value("${catalog.facets.price-bucket-size:5000}")
+    private int priceBucketSize;
+
+    private final TtlCache<FacetKey, SaleItemFacetsDto> facetCache = new TtlCache<>(Duration.ofSeconds(30), 1000);
+
+    // Non-null columns only: keyset comparisons skip rows whose sort value is NULL
+    private static final Map<String, Function<SaleItem, Object>> CURSOR_SORT_FIELDS = Map.of(
+            "createdOn", SaleItem::getCreatedOn,
+            "updatedOn", SaleItem::getUpdatedOn,
+            "price", SaleItem::getPrice,
+            "quantity", SaleItem::getQuantity,
+            "model", SaleItem::getModel,
+            "id", SaleItem::getId
+    );
+
+    // ddl-auto does not create the FULLTEXT index, only db/init.sql does
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkFullTextIndex() {
+        if (!fullTextSearchEnabled) {
+            return;
+        }
+        try {
+            Integer indexes = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() "
+                            + "AND table_name = 'sale_item' AND index_name = 'ft_sale_item_search'",
+                    Integer.class);
+            if (indexes != null && indexes > 0) {
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.debug("Could not look up ft_sale_item_search", e);
+        }
+        log.warn("search.fulltext.enabled is set but ft_sale_item_search is missing; using LIKE keyword search");
+        fullTextSearchEnabled = false;
+    }
 
     private SaleItem findSaleItemById(Integer id){
         return saleItemRepository.findById(id)
@@ -100,6 +160,7 @@ public class SaleItemService {
             }
 
             SaleItem saleItem = saleItemRepository.save(newItem);
+            brandCache.invalidateBrands(saleItem.getBrand().getId());
             return modelMapper.map(saleItem, SaleItemDetailDto.class);
         } catch (ResponseStatusException e) {
             throw e;
@@ -129,6 +190,7 @@ public class SaleItemService {
             String sanitizedColor = saleItemUtil.sanitizeColor(dto.getColor());
             int resolvedQuantity = saleItemUtil.resolveQuantity(dto.getQuantity());
             Brand brand = saleItemUtil.resolveBrand(dto);
+            Integer previousBrandId = existingSaleItem.getBrand().getId();
 
             existingSaleItem.setModel(trimmedModel);
             existingSaleItem.setDescription(trimmedDescription);
@@ -141,6 +203,11 @@ public class SaleItemService {
             existingSaleItem.setScreenSizeInch(dto.getScreenSizeInch());
 
             SaleItem updatedSaleItem = saleItemRepository.save(existingSaleItem);
+            stockReservationLedger.resync(updatedSaleItem.getId(), resolvedQuantity);
+            saleItemDetailCache.invalidate(updatedSaleItem.getId());
+            if (!previousBrandId.equals(brand.getId())) {
+                brandCache.invalidateBrands(previousBrandId, brand.getId());
+            }
             return modelMapper.map(updatedSaleItem, SaleItemDetailDto.class);
         } catch (ResponseStatusException e) {
             throw e;
@@ -160,6 +227,9 @@ public class SaleItemService {
             saleItem.setDeleted(true);
             saleItem.setDeletedAt(Instant.now());
             saleItemRepository.save(saleItem);
+            brandCache.invalidateBrands(saleItem.getBrand().getId());
+            saleItemDetailCache.invalidate(id);
+            cartSweeper.purgeSaleItemAfterCommit(id);
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -189,35 +259,30 @@ public class SaleItemService {
         }
         int pageSize = (size == null || size <= 0) ? 10 : size;
 
-        Sort.Direction direction = "desc".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        String sortBy = (sortField == null || sortField.isBlank()) ? "createdOn" : sortField;
+        Specification<SaleItem> spec = buildFilterSpecification(sellerId, filterBrands, filterStorages,
+                filterPriceLower, filterPriceUpper, filterNullStorage, searchKeyword);
 
-        Sort.Order order;
-        if (String.class.equals(SaleItem.class.getDeclaredField(sortBy).getType())) {
-            order = new Sort.Order(direction, sortBy).ignoreCase();
+        Pageable pageable;
+        if (fullTextSearchEnabled && (sortField == null || sortField.isBlank())
+                && searchKeyword != null && !searchKeyword.isBlank()) {
+            pageable = PageRequest.of(page, pageSize);
+            spec = spec.and(SaleItemSpecifications.orderByRelevance(searchKeyword));
         } else {
-            order = new Sort.Order(direction, sortBy);
+            Sort.Direction direction = "desc".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
+            String sortBy = (sortField == null || sortField.isBlank()) ? "createdOn" : sortField;
+
+            Sort.Order order;
+            if (String.class.equals(SaleItem.class.getDeclaredField(sortBy).getType())) {
+                order = new Sort.Order(direction, sortBy).ignoreCase();
+            } else {
+                order = new Sort.Order(direction, sortBy);
+            }
+            pageable = PageRequest.of(page, pageSize, Sort.by(order));
         }
 
-        Pageable pageable = PageRequest.of(page, pageSize, Sort.by(order));
-
-        Specification<SaleItem> spec = Specification
-                .where(SaleItemSpecifications.hasSeller(sellerId))
-                .and(SaleItemSpecifications.hasBrands(filterBrands))
-                .and(SaleItemSpecifications.minPrice(filterPriceLower))
-                .and(SaleItemSpecifications.maxPrice(filterPriceUpper))
-                .and(SaleItemSpecifications.hasStorage(filterStorages, filterNullStorage))
-                .and(SaleItemSpecifications.keyword(searchKeyword))
-                .and(SaleItemSpecifications.isNotDeleted());
-
         Page<SaleItem> saleItemsPage = saleItemRepository.findAll(spec, pageable);
         List<SaleItemDetailDto> content = saleItemsPage.getContent().stream()
-                .map(saleItem -> {
-                    SaleItemDetailDto dto = modelMapper.map(saleItem, SaleItemDetailDto.class);
-                    dto.setSellerId(saleItem.getSeller() != null ? saleItem.getSeller().getId() : null);
-                    dto.setSellerName(saleItem.getSeller() != null ? saleItem.getSeller().getAccount().getNickname() : null);
-                    return dto;
-                })
+                .map(this::mapToListingDto)
                 .toList();
         SaleItemPagedResponseDto responseDto = new SaleItemPagedResponseDto();
         responseDto.setContent(content);
@@ -233,7 +298,207 @@ public class SaleItemService {
         return responseDto;
     }
 
+    public SaleItemCursorResponseDto getSaleItemsByCursor(
+            Integer sellerId,
+            List<String> filterBrands,
+            List<Integer> filterStorages,
+            Integer filterPriceLower,
+            Integer filterPriceUpper,
+            String cursor,
+            Integer size,
+            String sortField,
+            String sortDirection,
+            Boolean filterNullStorage,
+            String searchKeyword) {
+
+        int pageSize = (size == null || size <= 0) ? 10 : size;
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDirection) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        String sortBy = (sortField == null || sortField.isBlank()) ? "createdOn" : sortField;
+        if (!CURSOR_SORT_FIELDS.containsKey(sortBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cursor paging is not supported for sort field: " + sortBy);
+        }
+
+        Sort.Order order = new Sort.Order(direction, sortBy);
+        if ("model".equals(sortBy)) {
+            order = order.ignoreCase();
+        }
+        Sort sort = Sort.by(order, new Sort.Order(direction, "id"));
+
+        Specification<SaleItem> spec = buildFilterSpecification(sellerId, filterBrands, filterStorages,
+                filterPriceLower, filterPriceUpper, filterNullStorage, searchKeyword);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor, sortBy, direction);
+            spec = spec.and(SaleItemSpecifications.after(
+                    sortBy, direction, parseCursorValue(sortBy, position[3]), Integer.valueOf(position[2])));
+        }
+
+        // One extra row tells whether another page exists, so no COUNT query is needed
+        List<SaleItem> rows = saleItemRepository.findBy(spec, query -> query
+                .sortBy(sort)
+                .limit(pageSize + 1)
+                .project("brand", "seller", "seller.account")
+                .all());
+        boolean last = rows.size() <= pageSize;
+        List<SaleItem> pageRows = last ? rows : rows.subList(0, pageSize);
+
+        SaleItemCursorResponseDto responseDto = new SaleItemCursorResponseDto();
+        responseDto.setContent(pageRows.stream().map(this::mapToListingDto).toList());
+        responseDto.setSize(pageSize);
+        responseDto.setLast(last);
+        responseDto.setSort(sortBy + ":" + direction);
+        if (!last) {
+            responseDto.setNextCursor(encodeCursor(sortBy, direction, pageRows.get(pageRows.size() - 1)));
+        }
+        return responseDto;
+    }
+
+    public SaleItemFacetsDto getSaleItemFacets(
+            Integer sellerId,
+            List<String> filterBrands,
+            List<Integer> filterStorages,
+            Integer filterPriceLower,
+            Integer filterPriceUpper,
+            Boolean filterNullStorage,
+            String searchKeyword) {
+
+        FacetKey key = new FacetKey(
+                sellerId,
+                filterBrands == null ? List.of() : filterBrands.stream().map(String::toLowerCase).sorted().distinct().toList(),
+                filterStorages == null ? List.of() : filterStorages.stream().sorted().distinct().toList(),
+                filterPriceLower,
+                filterPriceUpper,
+                Boolean.TRUE.equals(filterNullStorage),
+                searchKeyword == null || searchKeyword.isBlank() ? null : searchKeyword.trim().toLowerCase()
+        );
+        return facetCache.getOrLoad(key, () -> loadFacets(key));
+    }
+
+    // Each dimension is counted with every filter except its own, so a selected brand
+    // still shows the other brands it could be widened to
+    private SaleItemFacetsDto loadFacets(FacetKey key) {
+        List<Tuple> filteredRows = countFacets(key.brands(), key.storages(), key.nullStorage(),
+                key.priceLower(), key.priceUpper(), key);
+        boolean brandFiltered = !key.brands().isEmpty();
+        boolean storageFiltered = !key.storages().isEmpty() || key.nullStorage();
+        boolean priceFiltered = key.priceLower() != null || key.priceUpper() != null;
+
+        List<Tuple> brandRows = brandFiltered
+                ? countFacets(null, key.storages(), key.nullStorage(), key.priceLower(), key.priceUpper(), key)
+                : filteredRows;
+        List<Tuple> storageRows = storageFiltered
+                ? countFacets(key.brands(), null, false, key.priceLower(), key.priceUpper(), key)
+                : filteredRows;
+        List<Tuple> priceRows = priceFiltered
+                ? countFacets(key.brands(), key.storages(), key.nullStorage(), null, null, key)
+                : filteredRows;
+
+        Map<String, Long> brandCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<Integer, Long> storageCounts = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        Map<Integer, Long> priceCounts = new TreeMap<>();
+        long total = 0;
+        for (Tuple row : filteredRows) {
+            total += row.get("total", Long.class);
+        }
+        for (Tuple row : brandRows) {
+            brandCounts.merge(row.get("brandName", String.class), row.get("total", Long.class), Long::sum);
+        }
+        for (Tuple row : storageRows) {
+            storageCounts.merge(row.get("storageGb", Integer.class), row.get("total", Long.class), Long::sum);
+        }
+        for (Tuple row : priceRows) {
+            priceCounts.merge(row.get("priceBucket", Integer.class), row.get("total", Long.class), Long::sum);
+        }
+
+        SaleItemFacetsDto facets = new SaleItemFacetsDto();
+        facets.setTotalElements(total);
+        facets.setBrands(brandCounts.entrySet().stream()
+                .map(e -> new SaleItemFacetsDto.FacetBucket(e.getKey(), e.getValue()))
+                .toList());
+        facets.setStorages(storageCounts.entrySet().stream()
+                .map(e -> new SaleItemFacetsDto.FacetBucket(e.getKey() == null ? null : e.getKey().toString(), e.getValue()))
+                .toList());
+        facets.setPriceRanges(priceCounts.entrySet().stream()
+                .map(e -> new SaleItemFacetsDto.PriceBucket(
+                        e.getKey() * priceBucketSize, (e.getKey() + 1) * priceBucketSize - 1, e.getValue()))
+                .toList());
+        return facets;
+    }
+
+    private List<Tuple> countFacets(List<String> brands, List<Integer> storages, boolean nullStorage,
+                                    Integer priceLower, Integer priceUpper, FacetKey key) {
+        Specification<SaleItem> spec = buildFilterSpecification(key.sellerId(), brands, storages,
+                priceLower, priceUpper, nullStorage, key.keyword());
+        return saleItemRepository.countFacets(spec, priceBucketSize);
+    }
+
+    private record FacetKey(Integer sellerId, List<String> brands, List<Integer> storages,
+                            Integer priceLower, Integer priceUpper, boolean nullStorage, String keyword) {
+    }
+
+    private Specification<SaleItem> buildFilterSpecification(
+            Integer sellerId,
+            List<String> filterBrands,
+            List<Integer> filterStorages,
+            Integer filterPriceLower,
+            Integer filterPriceUpper,
+            Boolean filterNullStorage,
+            String searchKeyword) {
+        return Specification
+                .where(SaleItemSpecifications.hasSeller(sellerId))
+                .and(SaleItemSpecifications.hasBrands(filterBrands))
+                .and(SaleItemSpecifications.minPrice(filterPriceLower))
+                .and(SaleItemSpecifications.maxPrice(filterPriceUpper))
+                .and(SaleItemSpecifications.hasStorage(filterStorages, filterNullStorage))
+                .and(fullTextSearchEnabled
+                        ? SaleItemSpecifications.fullTextKeyword(searchKeyword)
+                        : SaleItemSpecifications.keyword(searchKeyword))
+                .and(SaleItemSpecifications.isNotDeleted());
+    }
+
+    private SaleItemDetailDto mapToListingDto(SaleItem saleItem) {
+        SaleItemDetailDto dto = modelMapper.map(saleItem, SaleItemDetailDto.class);
+        dto.setSellerId(saleItem.getSeller() != null ? saleItem.getSeller().getId() : null);
+        dto.setSellerName(saleItem.getSeller() != null ? saleItem.getSeller().getAccount().getNickname() : null);
+        return dto;
+    }
+
+    private String encodeCursor(String sortField, Sort.Direction direction, SaleItem lastRow) {
+        String raw = sortField + ":" + direction + ":" + lastRow.getId() + ":"
+                + CURSOR_SORT_FIELDS.get(sortField).apply(lastRow);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, String sortField, Sort.Direction direction) {
+        String[] position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 4);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        if (position.length != 4 || !position[0].equals(sortField) || !position[1].equals(direction.name())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sort");
+        }
+        return position;
+    }
+
+    private Comparable<?> parseCursorValue(String sortField, String value) {
+        try {
+            return switch (sortField) {
+                case "createdOn", "updatedOn" -> Instant.parse(value);
+                case "price", "quantity", "id" -> Integer.valueOf(value);
+                default -> value.toLowerCase();
+            };
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
     public SaleItemDetailWithImagesDto getSaleItemDetailWithImages(Integer id) {
+        return saleItemDetailCache.get(id, () -> loadSaleItemDetailWithImages(id));
+    }
+
+    private SaleItemDetailWithImagesDto loadSaleItemDetailWithImages(Integer id) {
         SaleItem saleItem = findSaleItemById(id);
         SaleItemDetailWithImagesDto dto = modelMapper.map(saleItem, SaleItemDetailWithImagesDto.class);
         dto.setBrandName(saleItem.getBrand().getName());
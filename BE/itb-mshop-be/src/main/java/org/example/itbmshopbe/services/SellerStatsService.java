@@ -0,0 +1,121 @@
+package org.example.itbmshopbe.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.itbmshopbe.dtos.OrderDTO.SellerStatsDto;
+import org.example.itbmshopbe.entities.Order;
+import org.example.itbmshopbe.entities.OrderItem;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.SellerSalesDaily;
+import org.example.itbmshopbe.repositories.SaleItemRepository;
+import org.example.itbmshopbe.repositories.SellerSalesDailyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Seller sales rollups. Checkout adds each completed order to per-day and
+ * per-day-per-item counters, so the stats endpoint reads one row per day instead
+ * of scanning the seller's orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class SellerStatsService {
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final SellerSalesDailyRepository sellerSalesDailyRepository;
+    private final SaleItemRepository saleItemRepository;
+
+    @Value("${seller.stats.time-zone:UTC}")
+    private ZoneId zone;
+
+    /** Must run in the checkout transaction so the rollup commits or rolls back with the order. */
+    public void recordSale(Integer sellerId, Order order, List<OrderItem> orderItems) {
+        LocalDate salesDate = LocalDate.ofInstant(order.getCreatedOn(), zone);
+        // Sorted by sale item so concurrent checkouts take the rollup row locks in the same order
+        Map<Integer, long[]> unitsAndRevenue = new TreeMap<>();
+        for (OrderItem orderItem : orderItems) {
+            long[] totals = unitsAndRevenue.computeIfAbsent(orderItem.getSaleItem().getId(), id -> new long[2]);
+            totals[0] += orderItem.getQuantity();
+            totals[1] += (long) orderItem.getQuantity() * orderItem.getPriceEach();
+        }
+        int units = 0;
+        long revenue = 0;
+        for (Map.Entry<Integer, long[]> entry : unitsAndRevenue.entrySet()) {
+            long[] totals = entry.getValue();
+            sellerSalesDailyRepository.addItemSale(sellerId, salesDate, entry.getKey(), (int) totals[0], totals[1]);
+            units += (int) totals[0];
+            revenue += totals[1];
+        }
+        sellerSalesDailyRepository.addSale(sellerId, salesDate, units, revenue);
+    }
+
+    @Transactional(readOnly = true)
+    public SellerStatsDto getSellerStats(Integer sellerId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(zone);
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Date range must not exceed " + MAX_RANGE_DAYS + " days"
+            );
+        }
+
+        List<SellerStatsDto.DailyStats> days = sellerSalesDailyRepository
+                .findBySellerIdAndSalesDateBetweenOrderBySalesDate(sellerId, start, end)
+                .stream()
+                .map(this::mapDailyStats)
+                .toList();
+
+        List<Object[]> itemRows = sellerSalesDailyRepository.sumItemSales(sellerId, start, end);
+        Map<Integer, SaleItem> saleItems = saleItemRepository.findAllWithBrandAndSellerByIdIn(
+                        itemRows.stream().map(row -> (Integer) row[0]).toList())
+                .stream()
+                .collect(Collectors.toMap(SaleItem::getId, Function.identity()));
+        List<SellerStatsDto.ItemStats> items = itemRows.stream().map(row -> {
+            SellerStatsDto.ItemStats item = new SellerStatsDto.ItemStats();
+            item.setSaleItemId((Integer) row[0]);
+            SaleItem saleItem = saleItems.get(item.getSaleItemId());
+            item.setDescription(saleItem != null
+                    ? saleItem.getBrand().getName() + " " + saleItem.getModel()
+                    : null);
+            item.setOrders(((Number) row[1]).longValue());
+            item.setUnits(((Number) row[2]).longValue());
+            item.setRevenue(((Number) row[3]).longValue());
+            return item;
+        }).toList();
+
+        SellerStatsDto stats = new SellerStatsDto();
+        stats.setSellerId(sellerId);
+        stats.setFrom(start);
+        stats.setTo(end);
+        stats.setTotalOrders(days.stream().mapToLong(SellerStatsDto.DailyStats::getOrders).sum());
+        stats.setTotalUnits(days.stream().mapToLong(SellerStatsDto.DailyStats::getUnits).sum());
+        stats.setTotalRevenue(days.stream().mapToLong(SellerStatsDto.DailyStats::getRevenue).sum());
+        stats.setDays(days);
+        stats.setItems(items);
+        return stats;
+    }
+
+    private SellerStatsDto.DailyStats mapDailyStats(SellerSalesDaily row) {
+        SellerStatsDto.DailyStats day = new SellerStatsDto.DailyStats();
+        day.setDay(row.getSalesDate());
+        day.setOrders(row.getOrderCount());
+        day.setUnits(row.getUnits());
+        day.setRevenue(row.getRevenue());
+        return day;
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.itbmshopbe.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.repositories.SaleItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the stock of "hot" sale items in memory so flash-sale checkouts do not
+ * queue on the sale_item row lock. Reservations are granted against an atomic
+ * counter per item and the net decrement is written back to sale_item.quantity
+ * periodically in one JDBC batch.
+ * <p>
+ * Counters are rebuilt from the database on startup and flushed on shutdown.
+ * Decrements reserved after the last flush are lost if the process dies
+ * without a clean shutdown, so keep the flush interval short.
+ * <p>
+ * The counters live in this JVM only, so the ledger refuses to start unless
+ * {@code stock.hot-ledger.single-instance} confirms that no other instance is
+ * selling the same items.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationLedger {
+    private final SaleItemRepository saleItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stock.hot-ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${stock.hot-ledger.single-instance:false}")
+    private boolean singleInstance;
+
+    @Value("${stock.hot-ledger.sale-item-ids:}")
+    private Set<Integer> hotSaleItemIds;
+
+    @Value("${stock.hot-ledger.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    private final Map<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> pendingDecrements = new ConcurrentHashMap<>();
+    // Held while deltas are written back and while a quantity edit commits, so neither sees half of the other
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ScheduledExecutorService flusher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCounters() {
+        if (!enabled || hotSaleItemIds.isEmpty()) {
+            return;
+        }
+        if (!singleInstance) {
+            throw new IllegalStateException("stock.hot-ledger.enabled requires stock.hot-ledger.single-instance=true; "
+                    + "the counters are per process and several instances would oversell");
+        }
+        for (SaleItem saleItem : saleItemRepository.findAllById(hotSaleItemIds)) {
+            available.put(saleItem.getId(), new AtomicInteger(saleItem.getQuantity()));
+            pendingDecrements.put(saleItem.getId(), new AtomicInteger());
+        }
+        // Own thread so a slow write-back never delays, or is delayed by, the other scheduled jobs
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stock-ledger-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Stock ledger tracking hot sale items {}", available.keySet());
+    }
+
+    public boolean isHot(Integer saleItemId) {
+        return available.containsKey(saleItemId);
+    }
+
+    /**
+     * Takes {@code quantity} units from the in-memory counter. Returns null when
+     * there is not enough stock. If called inside a transaction, the units are
+     * given back automatically when that transaction rolls back.
+     */
+    public Reservation tryReserve(Integer saleItemId, int quantity) {
+        AtomicInteger counter = available.get(saleItemId);
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return null;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                break;
+            }
+        }
+        pendingDecrements.get(saleItemId).addAndGet(quantity);
+
+        Reservation reservation = new Reservation(saleItemId, quantity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Replaces the counter after the quantity was set directly in the database,
+     * e.g. when the seller edits the item. Inside a transaction the flush lock is
+     * taken just before commit and the counter is replaced once the row is
+     * committed, so no flush can subtract old deltas from the new quantity.
+     */
+    public void resync(Integer saleItemId, int quantity) {
+        if (!available.containsKey(saleItemId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flushLock.lock();
+            try {
+                replaceCounter(saleItemId, quantity);
+            } finally {
+                flushLock.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                flushLock.lock();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!flushLock.isHeldByCurrentThread()) {
+                    return;
+                }
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        replaceCounter(saleItemId, quantity);
+                    }
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+        });
+    }
+
+    private void replaceCounter(Integer saleItemId, int quantity) {
+        pendingDecrements.get(saleItemId).set(0);
+        available.get(saleItemId).set(quantity);
+    }
+
+    public void flush() {
+        if (available.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            writeBack();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBack() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Integer, AtomicInteger> entry : pendingDecrements.entrySet()) {
+            int delta = entry.getValue().getAndSet(0);
+            if (delta != 0) {
+                batch.add(new Object[]{delta, entry.getKey()});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE sale_item SET quantity = quantity - ? WHERE id = ?", batch));
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them
+            for (Object[] row : batch) {
+                pendingDecrements.get((Integer) row[1]).addAndGet((Integer) row[0]);
+            }
+            log.warn("Failed to flush stock ledger, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flush();
+    }
+
+    public class Reservation {
+        private final Integer saleItemId;
+        private final int quantity;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(Integer saleItemId, int quantity) {
+            this.saleItemId = saleItemId;
+            this.quantity = quantity;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                available.get(saleItemId).addAndGet(quantity);
+                pendingDecrements.get(saleItemId).addAndGet(-quantity);
+            }
+        }
+    }
+}
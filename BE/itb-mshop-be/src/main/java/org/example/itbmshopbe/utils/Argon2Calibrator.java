@@ -0,0 +1,66 @@
+package org.example.itbmshopbe.utils;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Finds Argon2 parameters that take roughly a target time to hash on the machine it
+ * runs on. Memory is doubled first (up to the cap) and iterations are raised after that.
+ * Run it on production-class hardware and copy the printed values into
+ * application.properties; existing hashes are upgraded on the next successful login.
+ * <pre>
+ * java -cp app.jar -Dloader.main=org.example.itbmshopbe.utils.Argon2Calibrator \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher [targetMs] [maxMemoryKib]
+ * </pre>
+ */
+public class Argon2Calibrator {
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final int PARALLELISM = 1;
+    private static final int MAX_ITERATIONS = 20;
+    private static final String SAMPLE_PASSWORD = "calibration-Password-1";
+
+    public record Parameters(int memoryKib, int iterations, Duration measured) {
+    }
+
+    public static Parameters calibrate(Duration target, int maxMemoryKib) {
+        int memoryKib = 1 << 13;
+        int iterations = 2;
+        Duration measured = measure(memoryKib, iterations);
+        while (measured.compareTo(target) < 0 && memoryKib * 2 <= maxMemoryKib) {
+            memoryKib *= 2;
+            measured = measure(memoryKib, iterations);
+        }
+        while (measured.compareTo(target) < 0 && iterations < MAX_ITERATIONS) {
+            iterations++;
+            measured = measure(memoryKib, iterations);
+        }
+        return new Parameters(memoryKib, iterations, measured);
+    }
+
+    // Median of a few runs after one warm-up, so JIT and allocation noise do not skew the result
+    private static Duration measure(int memoryKib, int iterations) {
+        Argon2PasswordEncoder encoder = new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, PARALLELISM, memoryKib, iterations);
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[5];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[samples.length / 2]);
+    }
+
+    public static void main(String[] args) {
+        Duration target = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[0]) : 250);
+        int maxMemoryKib = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 16;
+        Parameters parameters = calibrate(target, maxMemoryKib);
+        System.out.println("# measured " + parameters.measured().toMillis() + " ms per hash (target " + target.toMillis() + " ms)");
+        System.out.println("password.argon2.memory-kib=" + parameters.memoryKib());
+        System.out.println("password.argon2.iterations=" + parameters.iterations());
+        System.out.println("password.argon2.parallelism=" + PARALLELISM);
+    }
+}
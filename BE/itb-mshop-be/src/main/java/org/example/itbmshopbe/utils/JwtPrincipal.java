@@ -0,0 +1,17 @@
+package org.example.itbmshopbe.utils;
+
+import io.jsonwebtoken.Claims;
+
+/** The authenticated user as read from a verified access token. */
+public record JwtPrincipal(Integer id, String email, String nickname, String role, String status) {
+
+    public static JwtPrincipal fromClaims(Claims claims) {
+        return new JwtPrincipal(
+                claims.get("id", Integer.class),
+                claims.get("email", String.class),
+                claims.get("nickname", String.class),
+                claims.get("role", String.class),
+                claims.get("status", String.class)
+        );
+    }
+}
@@ -1,21 +1,33 @@
 package org.example.itbmshopbe.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.security.Key;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JwtTokenUtil {
     private static final long EXPIRATION_MS = 15 * 60 * 1000; //15min
     private static final String SECRET_KEY = generateRandomSecret();
     private static final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private static final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // Principals of recently verified tokens, keyed by the token's SHA-256 and kept until the token expires.
+    // Records are immutable, so one cached instance can be handed to every request thread
+    private static final int MAX_VERIFIED_TOKENS = 10_000;
+    private static final Map<String, VerifiedPrincipal> verifiedTokens = new ConcurrentHashMap<>();
 
 
     private static String generateRandomSecret() {
@@ -34,9 +46,7 @@ public class JwtTokenUtil {
     }
 
     public static boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody()
                 .getExpiration().before(new Date());
@@ -47,14 +57,18 @@ public class JwtTokenUtil {
     }
 
     public static String generateAccessToken(Integer id,String email,String nickname,String role,String status) {
+        Date now = new Date();
+        return generateAccessToken(id, email, nickname, role, status, now, new Date(now.getTime() + 1800000));
+    }
+
+    static String generateAccessToken(Integer id, String email, String nickname, String role, String status,
+                                      Date now, Date expiration) {
         Map<String,Object> claims = new HashMap<>();
         claims.put("id",id);
         claims.put("email",email);
         claims.put("nickname",nickname);
         claims.put("role",role);
         claims.put("status",status);
-        Date now = new Date();
-        Date expiration = new Date(now.getTime() + 1800000);
 
         return Jwts.builder()
                 .setClaims(claims)
@@ -66,11 +80,57 @@ public class JwtTokenUtil {
 
     }
     public static Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        if (token == null) {
+            throw new IllegalArgumentException("JWT String argument cannot be null");
+        }
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verifies an access token and returns its principal. The signature is checked once
+     * per token; repeated requests with the same token get the cached principal until
+     * the token's exp.
+     */
+    public static JwtPrincipal getPrincipal(String token) {
+        return getPrincipal(token, System.currentTimeMillis());
+    }
+
+    static JwtPrincipal getPrincipal(String token, long now) {
+        if (token == null) {
+            throw new IllegalArgumentException("JWT String argument cannot be null");
+        }
+        String digest = sha256(token);
+        VerifiedPrincipal cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return cached.principal();
+            }
+            verifiedTokens.remove(digest, cached);
+        }
+
+        Claims claims = validateToken(token);
+        JwtPrincipal principal = JwtPrincipal.fromClaims(claims);
+        if (claims.getExpiration() != null) {
+            if (verifiedTokens.size() >= MAX_VERIFIED_TOKENS) {
+                verifiedTokens.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            }
+            if (verifiedTokens.size() < MAX_VERIFIED_TOKENS) {
+                verifiedTokens.put(digest, new VerifiedPrincipal(principal, claims.getExpiration().getTime()));
+            }
+        }
+        return principal;
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedPrincipal(JwtPrincipal principal, long expiresAtMillis) {
     }
     public static String generateRefreshToken(Integer id, String email, String nickname, String role,String status) {
         Map<String,Object> claims = new HashMap<>();
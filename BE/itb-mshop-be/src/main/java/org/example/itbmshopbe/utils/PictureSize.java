@@ -0,0 +1,38 @@
+package org.example.itbmshopbe.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+
+/** Fixed derivative sizes generated for every uploaded picture, by longest edge in pixels. */
+public enum PictureSize {
+    THUMBNAIL(200),
+    CARD(480),
+    DETAIL(1080);
+
+    private final int maxEdge;
+
+    PictureSize(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public String getDirectoryName() {
+        return name().toLowerCase();
+    }
+
+    public static PictureSize fromParam(String size) {
+        if (size == null || size.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(size))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown picture size: " + size));
+    }
+}
@@ -1,12 +1,22 @@
 package org.example.itbmshopbe.utils;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.example.itbmshopbe.entities.SaleItem;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class SaleItemSpecifications {
 
+    // Matches innodb_ft_min_token_size; shorter tokens are not in the FULLTEXT index
+    private static final int FULLTEXT_MIN_TOKEN_LENGTH = 3;
+
     public static Specification<SaleItem> hasBrands(List<String> brandNames) {
         return (root, query, cb) -> {
             if (brandNames == null || brandNames.isEmpty()) return cb.conjunction();
@@ -50,6 +60,73 @@ public class SaleItemSpecifications {
         };
     }
 
+    /**
+     * Keyword search backed by the ft_sale_item_search FULLTEXT index. Every token must
+     * match as a word prefix ("gal s23" finds "Galaxy S23 Ultra"). Tokens shorter than
+     * the index minimum fall back to LIKE on description/model/color, applied on top of the indexed
+     * match; a keyword made only of short tokens uses {@link #keyword(String)}.
+     */
+    public static Specification<SaleItem> fullTextKeyword(String keyword) {
+        return (root, query, cb) -> {
+            if (keyword == null || keyword.isBlank()) return cb.conjunction();
+            List<String> tokens = tokenize(keyword);
+            String booleanQuery = toBooleanModeQuery(tokens);
+            if (booleanQuery.isEmpty()) {
+                return keyword(keyword).toPredicate(root, query, cb);
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.greaterThan(matchAgainst(root, cb, booleanQuery), 0.0));
+            for (String token : tokens) {
+                if (token.length() < FULLTEXT_MIN_TOKEN_LENGTH) {
+                    String likePattern = "%" + token + "%";
+                    predicates.add(cb.or(
+                            cb.like(cb.lower(root.get("description")), likePattern),
+                            cb.like(cb.lower(root.get("model")), likePattern),
+                            cb.like(cb.lower(root.get("color")), likePattern)
+                    ));
+                }
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Orders by FULLTEXT relevance, best match first. The ordering is skipped for
+     * count queries and when the keyword has no indexable token.
+     */
+    public static Specification<SaleItem> orderByRelevance(String keyword) {
+        return (root, query, cb) -> {
+            if (keyword == null || keyword.isBlank() || Long.class.equals(query.getResultType())) {
+                return cb.conjunction();
+            }
+            String booleanQuery = toBooleanModeQuery(tokenize(keyword));
+            if (!booleanQuery.isEmpty()) {
+                query.orderBy(cb.desc(matchAgainst(root, cb, booleanQuery)), cb.asc(root.get("id")));
+            }
+            return cb.conjunction();
+        };
+    }
+
+    private static Expression<Double> matchAgainst(Root<SaleItem> root, CriteriaBuilder cb, String booleanQuery) {
+        return cb.function("match_against", Double.class,
+                root.get("model"), root.get("description"), root.get("color"), cb.literal(booleanQuery));
+    }
+
+    // Splits on anything that is not a letter or digit, which also strips the boolean-mode operators
+    private static List<String> tokenize(String keyword) {
+        return Arrays.stream(keyword.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static String toBooleanModeQuery(List<String> tokens) {
+        return String.join(" ", tokens.stream()
+                .filter(token -> token.length() >= FULLTEXT_MIN_TOKEN_LENGTH)
+                .map(token -> "+" + token + "*")
+                .toList());
+    }
+
     public static Specification<SaleItem> hasSeller(Integer sellerId) {
         return (root, query, cb) -> {
             if (sellerId == null) {
@@ -69,4 +146,28 @@ public class SaleItemSpecifications {
     public static Specification<SaleItem> includeDeleted() {
         return (root, query, cb) -> cb.conjunction();
     }
+
+    /**
+     * Keyset condition for rows that come after (sortValue, lastId) in the given
+     * order, i.e. {@code (field, id) > (sortValue, lastId)} for ascending order.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Specification<SaleItem> after(String sortField, Sort.Direction direction,
+                                                Comparable sortValue, Integer lastId) {
+        return (root, query, cb) -> {
+            Expression field = sortValue instanceof String
+                    ? cb.lower(root.get(sortField))
+                    : root.get(sortField);
+            if (direction.isAscending()) {
+                return cb.or(
+                        cb.greaterThan(field, sortValue),
+                        cb.and(cb.equal(field, sortValue), cb.greaterThan(root.get("id"), lastId))
+                );
+            }
+            return cb.or(
+                    cb.lessThan(field, sortValue),
+                    cb.and(cb.equal(field, sortValue), cb.lessThan(root.get("id"), lastId))
+            );
+        };
+    }
 }
@@ -0,0 +1,93 @@
+package org.example.itbmshopbe.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the loader and
+ * everyone who arrives while it is running gets its result (or its exception) instead
+ * of running the loader again. Nothing is kept once the call finishes; pair it with a
+ * cache to reuse results over time.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            shared.increment();
+            return join(running);
+        }
+        loads.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Makes later callers start a fresh load instead of joining the one in flight,
+     * e.g. after the underlying data changed. The running load still completes for
+     * the callers already waiting on it.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /** Number of times the loader actually ran. */
+    public long loadCount() {
+        return loads.sum();
+    }
+
+    /** Number of calls served by another caller's load, i.e. loads saved. */
+    public long sharedCount() {
+        return shared.sum();
+    }
+
+    /**
+     * Publishes singleflight.calls tagged result=load|shared; the shared count is the
+     * number of loader calls saved.
+     */
+    public void registerMetrics(MeterRegistry registry, String name) {
+        FunctionCounter.builder("singleflight.calls", loads, LongAdder::sum)
+                .tag("name", name).tag("result", "load")
+                .register(registry);
+        FunctionCounter.builder("singleflight.calls", shared, LongAdder::sum)
+                .tag("name", name).tag("result", "shared")
+                .register(registry);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
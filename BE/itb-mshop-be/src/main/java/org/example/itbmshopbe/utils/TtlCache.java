@@ -0,0 +1,153 @@
+package org.example.itbmshopbe.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Small in-process cache whose entries expire after a fixed TTL. When the cache is
+ * full, expired entries are dropped first and then the entry closest to expiry.
+ * Concurrent {@link #getOrLoad} calls for the same missing key share one load
+ * through a {@link SingleFlight}. A load only fills the cache if its key was not
+ * invalidated while the load was running; invalidating other keys does not matter.
+ */
+public class TtlCache<K, V> {
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<K, V> loads = new SingleFlight<>();
+    // One token per running load; invalidate(key) removes it so the stale result is not cached
+    private final Map<K, Object> pendingLoads = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TtlCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    public V getOrLoad(K key, Supplier<V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        return loads.execute(key, () -> {
+            Object token = new Object();
+            pendingLoads.put(key, token);
+            try {
+                V loaded = loader.get();
+                putIfNotInvalidated(key, loaded, token);
+                return loaded;
+            } finally {
+                pendingLoads.remove(key, token);
+            }
+        });
+    }
+
+    public void invalidate(K key) {
+        loads.forget(key);
+        // Same bin lock as putIfNotInvalidated, so a finishing load either lands before this or not at all
+        entries.compute(key, (k, entry) -> {
+            pendingLoads.remove(k);
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        loads.forgetAll();
+        pendingLoads.clear();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long loadCount() {
+        return loads.loadCount();
+    }
+
+    /** Misses that were served by a load another caller already had in flight. */
+    public long sharedLoadCount() {
+        return loads.sharedCount();
+    }
+
+    /**
+     * Publishes cache.gets (tagged result=hit|miss) and cache.size for this cache,
+     * following the names Micrometer uses for its own cache binders, plus the
+     * single-flight load counters under the cache name.
+     */
+    public void registerMetrics(MeterRegistry registry, String cacheName) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", cacheName).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", cacheName).tag("result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .tag("cache", cacheName)
+                .register(registry);
+        loads.registerMetrics(registry, cacheName);
+    }
+
+    private void putIfNotInvalidated(K key, V value, Object token) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        long expiresAt = System.nanoTime() + ttlNanos;
+        entries.compute(key, (k, entry) -> pendingLoads.remove(k, token) ? new Entry<>(value, expiresAt) : entry);
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        while (entries.size() >= maxSize) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package org.example.itbmshopbe.utils;
 import jakarta.servlet.http.HttpServletRequest;
 import org.example.itbmshopbe.entities.Seller;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
 public class Util {
@@ -31,17 +33,11 @@ public class Util {
     }
 
     public static Integer getUserIdFromToken(HttpServletRequest request) {
-        String token = extractToken(request);
-        try {
-            return JwtTokenUtil.getIdFromToken(token);
-        } catch (io.jsonwebtoken.JwtException | IllegalArgumentException e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired token");
-        }
+        return currentPrincipal(request).id();
     }
 
     public static Integer validateAndGetUserId(HttpServletRequest request, Integer pathId) {
-        String token = extractToken(request);
-        Integer tokenUserId = extractUserIdFromToken(token);
+        Integer tokenUserId = currentPrincipal(request).id();
 
         if (pathId != null && !pathId.equals(tokenUserId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
@@ -52,9 +48,9 @@ public class Util {
     }
 
     public static Integer validateAndGetSellerUserId(HttpServletRequest request, Integer pathId) {
-        String token = extractToken(request);
-        Integer tokenUserId = extractUserIdFromToken(token);
-        String tokenUserRole = extractRoleFromToken(token);
+        JwtPrincipal principal = currentPrincipal(request);
+        Integer tokenUserId = principal.id();
+        String tokenUserRole = principal.role();
 
         if (!"SELLER".equalsIgnoreCase(tokenUserRole)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
@@ -69,27 +65,28 @@ public class Util {
         return tokenUserId;
     }
 
-    private static String extractToken(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Token");
+    /**
+     * Returns the user authenticated by JwtAuthenticationFilter. When the filter did not
+     * authenticate the request, the token is checked here to report why.
+     */
+    private static JwtPrincipal currentPrincipal(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
         }
-        return authHeader.substring(7);
-    }
-
-    private static Integer extractUserIdFromToken(String token) {
+        String token = extractToken(request);
         try {
-            return JwtTokenUtil.getIdFromToken(token);
+            return JwtTokenUtil.getPrincipal(token);
         } catch (io.jsonwebtoken.JwtException | IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired token");
         }
     }
 
-    private static String extractRoleFromToken(String token) {
-        try {
-            return JwtTokenUtil.getRoleFromToken(token);
-        } catch (io.jsonwebtoken.JwtException | IllegalArgumentException e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired token");
+    private static String extractToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Token");
         }
+        return authHeader.substring(7);
     }
 }
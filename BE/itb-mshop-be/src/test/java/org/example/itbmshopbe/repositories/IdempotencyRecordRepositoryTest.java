@@ -0,0 +1,41 @@
+package org.example.itbmshopbe.repositories;
+
+import org.example.itbmshopbe.entities.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class IdempotencyRecordRepositoryTest {
+    private static final String KEY = "a".repeat(64);
+    private static final String REQUEST = "b".repeat(64);
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Test
+    void ownerThatLostItsClaimCannotCompleteOrRelease() {
+        Instant firstClaim = Instant.now().minus(Duration.ofMinutes(10)).truncatedTo(ChronoUnit.MICROS);
+        Instant takeover = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        assertEquals(1, repository.claim(KEY, 1, REQUEST, firstClaim, takeover.plus(Duration.ofHours(24))));
+        assertEquals(1, repository.takeOverStale(KEY, REQUEST, takeover, takeover.minusSeconds(120)));
+
+        assertEquals(0, repository.complete(KEY, firstClaim, "\"stale\""));
+        assertEquals(0, repository.release(KEY, firstClaim));
+        assertEquals(1, repository.complete(KEY, takeover, "\"fresh\""));
+
+        IdempotencyRecord stored = repository.findById(KEY).orElseThrow();
+        assertEquals(IdempotencyRecord.Status.COMPLETED, stored.getStatus());
+        assertEquals("\"fresh\"", stored.getResponseBody());
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.itbmshopbe.repositories;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.entities.Brand;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SaleItemRepositoryStockTest {
+    private static final int STOCK = 10;
+    private static final int BUYERS = 40;
+
+    @Autowired
+    private SaleItemRepository saleItemRepository;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Integer saleItemId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        saleItemId = transactionTemplate.execute(status -> {
+            Seller seller = CatalogFixtures.seller(em, "stock-seller");
+            Brand brand = CatalogFixtures.brand(em, "Stock Brand");
+            return CatalogFixtures.saleItems(em, 1, STOCK, List.of(seller), List.of(brand)).get(0).getId();
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM SaleItem").executeUpdate();
+            em.createQuery("DELETE FROM Brand").executeUpdate();
+            em.createQuery("DELETE FROM Seller").executeUpdate();
+            em.createQuery("DELETE FROM Account").executeUpdate();
+        });
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < BUYERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> saleItemRepository.reserveStock(saleItemId, 1));
+                }));
+            }
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Integer> result : results) {
+                reserved += result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(STOCK, reserved);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, saleItemRepository.findById(saleItemId).map(SaleItem::getQuantity).orElseThrow());
+    }
+
+    @Test
+    void reserveStockRefreshesManagedEntity() {
+        transactionTemplate.executeWithoutResult(status -> {
+            SaleItem before = saleItemRepository.findById(saleItemId).orElseThrow();
+            assertEquals(STOCK, before.getQuantity());
+
+            assertEquals(1, saleItemRepository.reserveStock(saleItemId, 3));
+
+            SaleItem after = saleItemRepository.findById(saleItemId).orElseThrow();
+            assertEquals(STOCK - 3, after.getQuantity());
+        });
+    }
+}
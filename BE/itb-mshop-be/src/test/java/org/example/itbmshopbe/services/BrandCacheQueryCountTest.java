@@ -0,0 +1,107 @@
+package org.example.itbmshopbe.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.entities.Brand;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.example.itbmshopbe.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Not transactional: cache invalidation only runs after a real commit
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({BrandService.class, BrandCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BrandCacheQueryCountTest {
+    private static final int READS = 20;
+
+    @Autowired
+    private BrandService brandService;
+    @Autowired
+    private BrandCache brandCache;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private SaleItemDetailCache saleItemDetailCache;
+
+    private TransactionTemplate transactionTemplate;
+    private Brand brand;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            brand = CatalogFixtures.brand(em, "Apple");
+            CatalogFixtures.brand(em, "Samsung");
+            CatalogFixtures.saleItems(em, 3, 1, List.of(CatalogFixtures.seller(em, "brand-seller")),
+                    List.of(brand));
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        brandCache.invalidateAll();
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM SaleItem").executeUpdate();
+            em.createQuery("DELETE FROM Brand").executeUpdate();
+            em.createQuery("DELETE FROM Seller").executeUpdate();
+            em.createQuery("DELETE FROM Account").executeUpdate();
+        });
+    }
+
+    @Test
+    void repeatedBrandListReadsHitTheDatabaseOnce() {
+        long firstRead = selectsFor(() -> brandService.getAllBrands());
+        long repeatedReads = selectsFor(() -> {
+            for (int i = 0; i < READS; i++) {
+                brandService.getAllBrands();
+            }
+        });
+
+        assertTrue(firstRead > 0);
+        assertEquals(0, repeatedReads);
+    }
+
+    @Test
+    void repeatedBrandDetailReadsHitTheDatabaseOnceUntilInvalidated() {
+        long firstRead = selectsFor(() -> brandService.getBrandById(brand.getId()));
+        long repeatedReads = selectsFor(() -> {
+            for (int i = 0; i < READS; i++) {
+                assertEquals(3, brandService.getBrandById(brand.getId()).getNoOfSaleItems());
+            }
+        });
+        brandCache.invalidateBrands(brand.getId());
+        long afterInvalidation = selectsFor(() -> brandService.getBrandById(brand.getId()));
+
+        assertTrue(firstRead > 0);
+        assertEquals(0, repeatedReads);
+        assertEquals(firstRead, afterInvalidation);
+    }
+
+    private long selectsFor(Runnable reads) {
+        SqlStatementCounter.reset();
+        reads.run();
+        return SqlStatementCounter.selects();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.itbmshopbe.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.entities.Account;
+import org.example.itbmshopbe.entities.Cart;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.repositories.CartRepository;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Not transactional: the purges run after a real commit
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(CartSweeper.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartSweeperTest {
+    @Autowired
+    private CartSweeper cartSweeper;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Account buyer;
+    private Account otherBuyer;
+    private List<SaleItem> items;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            buyer = CatalogFixtures.account(em, "sweep-buyer", "BUYER");
+            otherBuyer = CatalogFixtures.account(em, "sweep-other", "BUYER");
+            Seller seller = CatalogFixtures.seller(em, "sweep-seller");
+            items = CatalogFixtures.saleItems(em, 3, 5, List.of(seller),
+                    List.of(CatalogFixtures.brand(em, "Sweep Brand")));
+            items.forEach(item -> {
+                addToCart(buyer, item);
+                addToCart(otherBuyer, item);
+            });
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Cart").executeUpdate();
+            em.createQuery("DELETE FROM SaleItem").executeUpdate();
+            em.createQuery("DELETE FROM Brand").executeUpdate();
+            em.createQuery("DELETE FROM Seller").executeUpdate();
+            em.createQuery("DELETE FROM Account").executeUpdate();
+        });
+    }
+
+    @Test
+    void orderedItemsLeaveTheBuyersCartOnceCheckoutCommits() {
+        List<Integer> ordered = List.of(items.get(0).getId(), items.get(1).getId());
+
+        transactionTemplate.executeWithoutResult(status -> cartSweeper.purgeOrderedAfterCommit(buyer.getId(), ordered));
+
+        assertEquals(1, cartRepository.findByAccountId(buyer.getId()).size());
+        assertEquals(3, cartRepository.findByAccountId(otherBuyer.getId()).size());
+    }
+
+    @Test
+    void deletedSaleItemLeavesEveryCartOnceDeleteCommits() {
+        Integer deletedId = items.get(2).getId();
+
+        transactionTemplate.executeWithoutResult(status -> cartSweeper.purgeSaleItemAfterCommit(deletedId));
+
+        assertEquals(2, cartRepository.findByAccountId(buyer.getId()).size());
+        assertEquals(2, cartRepository.findByAccountId(otherBuyer.getId()).size());
+    }
+
+    @Test
+    void nothingIsPurgedWhenTheTransactionRollsBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            cartSweeper.purgeSaleItemAfterCommit(items.get(0).getId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(3, cartRepository.findByAccountId(buyer.getId()).size());
+    }
+
+    private void addToCart(Account owner, SaleItem item) {
+        Cart cart = new Cart();
+        cart.setAccount(owner);
+        cart.setSaleItem(item);
+        cart.setQuantity(1);
+        em.persist(cart);
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.itbmshopbe.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.dtos.CartDTO.CartResponseDto;
+import org.example.itbmshopbe.entities.Account;
+import org.example.itbmshopbe.entities.Brand;
+import org.example.itbmshopbe.entities.Cart;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.example.itbmshopbe.support.SqlStatementCounter;
+import org.example.itbmshopbe.utils.RepositoryHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({CartService.class, RepositoryHelper.class})
+class CartViewQueryCountTest {
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private EntityManager em;
+
+    private Account smallCartOwner;
+    private Account largeCartOwner;
+
+    @BeforeEach
+    void seed() {
+        smallCartOwner = CatalogFixtures.account(em, "small-cart", "BUYER");
+        largeCartOwner = CatalogFixtures.account(em, "large-cart", "BUYER");
+        List<Seller> sellers = List.of(
+                CatalogFixtures.seller(em, "cart-seller-a"),
+                CatalogFixtures.seller(em, "cart-seller-b"));
+        List<Brand> brands = List.of(
+                CatalogFixtures.brand(em, "Apple"),
+                CatalogFixtures.brand(em, "Samsung"),
+                CatalogFixtures.brand(em, "Xiaomi"));
+        List<SaleItem> items = CatalogFixtures.saleItems(em, 25, 5, sellers, brands);
+        items.get(0).setDeleted(true);
+
+        items.subList(0, 3).forEach(item -> addToCart(smallCartOwner, item));
+        items.forEach(item -> addToCart(largeCartOwner, item));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void cartViewIsTwoSelectsWhateverTheCartSize() {
+        assertEquals(2, selectsForCart(smallCartOwner, 2));
+        assertEquals(2, selectsForCart(largeCartOwner, 24));
+    }
+
+    private long selectsForCart(Account owner, int expectedLines) {
+        SqlStatementCounter.reset();
+        List<CartResponseDto> cart = cartService.getAllCartItemsByUser(owner.getId());
+        assertEquals(expectedLines, cart.size());
+        cart.forEach(line -> assertEquals(owner.getId(), line.getAccountId()));
+        em.clear();
+        return SqlStatementCounter.selects();
+    }
+
+    private void addToCart(Account owner, SaleItem item) {
+        Cart cart = new Cart();
+        cart.setAccount(owner);
+        cart.setSaleItem(item);
+        cart.setQuantity(1);
+        em.persist(cart);
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.itbmshopbe.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.example.itbmshopbe.entities.EmailOutbox;
+import org.example.itbmshopbe.repositories.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BASE_SECONDS = 30;
+    private static final long LEASE_SECONDS = 300;
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final List<MimeMessage> created = new ArrayList<>();
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        Session session = Session.getInstance(new Properties());
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> {
+            MimeMessage message = new MimeMessage(session);
+            created.add(message);
+            return message;
+        });
+
+        dispatcher = new EmailOutboxDispatcher(repository, mailSender,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(dispatcher, "retryBaseSeconds", RETRY_BASE_SECONDS);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", LEASE_SECONDS);
+        dispatcher.registerMetrics();
+    }
+
+    @Test
+    void claimedEmailsAreLeasedUntilTheySend() throws Exception {
+        EmailOutbox email = email(1L, 0);
+        queue(email);
+        Instant start = Instant.now();
+        doAnswer(invocation -> {
+            // Another dispatcher must not see the row as due while SMTP is in progress
+            assertFalse(email.getNextAttemptAt().isBefore(start.plusSeconds(LEASE_SECONDS)));
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        dispatcher.dispatch();
+
+        assertEquals(EmailOutbox.Status.SENT, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertNotNull(email.getSentAt());
+        assertNull(email.getLastError());
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        verify(repository).saveAll(List.of(email));
+    }
+
+    @Test
+    void partialBatchFailureRetriesOnlyTheFailedMessage() throws Exception {
+        EmailOutbox first = email(1L, 0);
+        EmailOutbox rejected = email(2L, 0);
+        EmailOutbox third = email(3L, 0);
+        queue(first, rejected, third);
+        doAnswer(invocation -> {
+            MimeMessage failed = findMessageTo(rejected.getRecipient());
+            throw new MailSendException(Map.of(failed, new MessagingException("550 mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+        Instant start = Instant.now();
+
+        dispatcher.dispatch();
+
+        assertEquals(EmailOutbox.Status.SENT, first.getStatus());
+        assertEquals(EmailOutbox.Status.SENT, third.getStatus());
+        assertEquals(EmailOutbox.Status.PENDING, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertNull(rejected.getSentAt());
+        assertEquals("550 mailbox unavailable", rejected.getLastError());
+        assertRetryAfter(rejected, start, Duration.ofSeconds(RETRY_BASE_SECONDS));
+    }
+
+    @Test
+    void backoffDoublesWithEveryAttempt() throws Exception {
+        EmailOutbox email = email(1L, 2);
+        queue(email);
+        doThrow(new MailAuthenticationException("535 authentication failed"))
+                .when(mailSender).send(any(MimeMessage[].class));
+        Instant start = Instant.now();
+
+        dispatcher.dispatch();
+
+        assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+        assertEquals(3, email.getAttempts());
+        assertRetryAfter(email, start, Duration.ofSeconds(RETRY_BASE_SECONDS * 4));
+    }
+
+    @Test
+    void connectionFailureRetriesTheWholeBatch() throws Exception {
+        EmailOutbox first = email(1L, 0);
+        EmailOutbox second = email(2L, 0);
+        queue(first, second);
+        doThrow(new MailAuthenticationException("535 authentication failed"))
+                .when(mailSender).send(any(MimeMessage[].class));
+
+        dispatcher.dispatch();
+
+        for (EmailOutbox email : List.of(first, second)) {
+            assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+            assertEquals(1, email.getAttempts());
+            assertEquals("535 authentication failed", email.getLastError());
+        }
+    }
+
+    @Test
+    void emailIsMarkedFailedAfterMaxAttempts() throws Exception {
+        EmailOutbox email = email(1L, MAX_ATTEMPTS - 1);
+        queue(email);
+        doAnswer(invocation -> {
+            throw new MailSendException(Map.of(created.get(0), new MessagingException("550 mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        dispatcher.dispatch();
+
+        assertEquals(EmailOutbox.Status.FAILED, email.getStatus());
+        assertEquals(MAX_ATTEMPTS, email.getAttempts());
+        assertNull(email.getSentAt());
+        verify(repository).saveAll(List.of(email));
+    }
+
+    @Test
+    void emptyOutboxDoesNotOpenAnSmtpConnection() {
+        when(repository.findDueForUpdate(any(), any())).thenReturn(List.of());
+
+        dispatcher.dispatch();
+
+        verify(mailSender, never()).send(any(MimeMessage[].class));
+        verify(repository, never()).saveAll(any());
+    }
+
+    private void queue(EmailOutbox... emails) {
+        when(repository.findDueForUpdate(any(), any())).thenReturn(List.of(emails), List.of());
+    }
+
+    private static EmailOutbox email(long id, int attempts) {
+        EmailOutbox email = new EmailOutbox();
+        email.setId(id);
+        email.setRecipient("buyer" + id + "@example.com");
+        email.setSubject("Order " + id);
+        email.setHtmlBody("<p>Order " + id + "</p>");
+        email.setAttempts(attempts);
+        email.setNextAttemptAt(Instant.now().minusSeconds(1));
+        return email;
+    }
+
+    private MimeMessage findMessageTo(String recipient) throws MessagingException {
+        for (MimeMessage message : created) {
+            if (message.getAllRecipients()[0].toString().equals(recipient)) {
+                return message;
+            }
+        }
+        throw new AssertionError("No message to " + recipient);
+    }
+
+    private static void assertRetryAfter(EmailOutbox email, Instant start, Duration backoff) {
+        Instant earliest = start.plus(backoff);
+        Instant latest = Instant.now().plus(backoff);
+        assertFalse(email.getNextAttemptAt().isBefore(earliest), "retry scheduled too early");
+        assertFalse(email.getNextAttemptAt().isAfter(latest), "retry scheduled too late");
+    }
+}
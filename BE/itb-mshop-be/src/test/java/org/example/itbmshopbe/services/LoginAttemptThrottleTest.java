@@ -0,0 +1,122 @@
+package org.example.itbmshopbe.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptThrottleTest {
+    private static final long WINDOW_SECONDS = 300;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private LoginAttemptThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginAttemptThrottle();
+        throttle.clock = now::get;
+        ReflectionTestUtils.setField(throttle, "windowSeconds", WINDOW_SECONDS);
+        ReflectionTestUtils.setField(throttle, "maxFailuresPerEmail", 3);
+        ReflectionTestUtils.setField(throttle, "maxFailuresPerIp", 5);
+        ReflectionTestUtils.setField(throttle, "maxRegistrationsPerIp", 2);
+    }
+
+    @Test
+    void emailIsLockedAfterMaxFailures() {
+        for (int i = 0; i < 3; i++) {
+            throttle.checkLogin("Buyer@Example.com", "10.0.0.1");
+            throttle.recordLoginFailure("Buyer@Example.com", "10.0.0.1");
+        }
+
+        assertTooManyRequests(() -> throttle.checkLogin("buyer@example.com", "10.0.0.2"));
+        throttle.checkLogin("other@example.com", "10.0.0.1");
+    }
+
+    @Test
+    void ipIsLockedAfterMaxFailuresAcrossEmails() {
+        for (int i = 0; i < 5; i++) {
+            throttle.recordLoginFailure("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertTooManyRequests(() -> throttle.checkLogin("fresh@example.com", "10.0.0.1"));
+        throttle.checkLogin("fresh@example.com", "10.0.0.2");
+    }
+
+    @Test
+    void lockIsLiftedWhenTheWindowEnds() {
+        for (int i = 0; i < 3; i++) {
+            throttle.recordLoginFailure("buyer@example.com", "10.0.0.1");
+        }
+        now.addAndGet(WINDOW_SECONDS * 1000 - 1);
+        assertTooManyRequests(() -> throttle.checkLogin("buyer@example.com", "10.0.0.1"));
+
+        now.incrementAndGet();
+        throttle.checkLogin("buyer@example.com", "10.0.0.1");
+    }
+
+    @Test
+    void windowIsFixedFromTheFirstFailure() {
+        throttle.recordLoginFailure("buyer@example.com", "10.0.0.1");
+        now.addAndGet(WINDOW_SECONDS * 1000 - 1);
+        throttle.recordLoginFailure("buyer@example.com", "10.0.0.1");
+        throttle.recordLoginFailure("buyer@example.com", "10.0.0.1");
+        assertTooManyRequests(() -> throttle.checkLogin("buyer@example.com", "10.0.0.1"));
+
+        // Later failures do not extend the window
+        now.incrementAndGet();
+        throttle.checkLogin("buyer@example.com", "10.0.0.1");
+    }
+
+    @Test
+    void successfulLoginClearsTheEmailCounterButNotTheIpCounter() {
+        for (int i = 0; i < 5; i++) {
+            throttle.recordLoginFailure("buyer@example.com", "10.0.0.1");
+        }
+
+        throttle.recordLoginSuccess("BUYER@example.com");
+
+        throttle.checkLogin("buyer@example.com", "10.0.0.2");
+        assertTooManyRequests(() -> throttle.checkLogin("buyer@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    void registrationsAreLimitedPerIp() {
+        throttle.checkRegistration("10.0.0.1");
+        throttle.recordRegistration("10.0.0.1");
+        throttle.checkRegistration("10.0.0.1");
+        throttle.recordRegistration("10.0.0.1");
+
+        assertTooManyRequests(() -> throttle.checkRegistration("10.0.0.1"));
+        throttle.checkRegistration("10.0.0.2");
+    }
+
+    @Test
+    void concurrentRegistrationPastTheLimitIsRejectedWhenRecorded() {
+        // All three requests passed checkRegistration before any of them was recorded
+        throttle.recordRegistration("10.0.0.1");
+        throttle.recordRegistration("10.0.0.1");
+
+        assertTooManyRequests(() -> throttle.recordRegistration("10.0.0.1"));
+    }
+
+    @Test
+    void expiredWindowsAreEvicted() {
+        throttle.recordLoginFailure("buyer@example.com", "10.0.0.1");
+        now.addAndGet(WINDOW_SECONDS * 1000);
+
+        throttle.evictExpired();
+
+        assertEquals(0, ((Map<?, ?>) ReflectionTestUtils.getField(throttle, "windows")).size());
+    }
+
+    private static void assertTooManyRequests(Runnable check) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, check::run);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+    }
+}
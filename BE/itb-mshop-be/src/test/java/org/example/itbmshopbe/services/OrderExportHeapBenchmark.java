@@ -0,0 +1,143 @@
+package org.example.itbmshopbe.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.entities.Account;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports 1M synthetic orders and samples the live heap while the export streams.
+ * Not picked up by the default test run; run it on its own with
+ * {@code ./mvnw test -Dtest=OrderExportHeapBenchmark -Dexport.benchmark.orders=1000000}.
+ * The database is a file-backed H2, so the table data itself stays off the heap.
+ */
+@DataJpaTest(properties =
+        "spring.datasource.url=jdbc:h2:file:./target/export-benchmark/db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(OrderExportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderExportHeapBenchmark {
+    private static final long SAMPLE_EVERY_BYTES = 16L * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    @Autowired
+    private OrderExportService orderExportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void heapStaysFlatWhileExportingOneMillionOrders() throws Exception {
+        int orders = Integer.getInteger("export.benchmark.orders", 1_000_000);
+        Seller seller = seed(orders);
+
+        for (OrderExportService.Format format : OrderExportService.Format.values()) {
+            HeapSamplingOutputStream output = new HeapSamplingOutputStream();
+            long start = System.nanoTime();
+            orderExportService.exportSellerOrders(seller.getId(), format).writeTo(output);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%s export of %d orders: %d MB in %d ms, heap after GC %d MB before, max %d MB during (%d samples)%n",
+                    format, orders, output.bytes / (1024 * 1024), elapsedMs,
+                    output.baseline / (1024 * 1024), output.maxUsed / (1024 * 1024), output.samples);
+            assertEquals(orders, output.lines - (format == OrderExportService.Format.CSV ? 1 : 0));
+            assertTrue(output.maxUsed - output.baseline < MAX_HEAP_GROWTH_BYTES,
+                    "heap grew by " + (output.maxUsed - output.baseline) / (1024 * 1024) + " MB");
+        }
+    }
+
+    private Seller seed(int orders) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Account buyer = transactionTemplate.execute(status -> CatalogFixtures.account(em, "bench-buyer", "BUYER"));
+        Seller seller = transactionTemplate.execute(status -> CatalogFixtures.seller(em, "bench-seller"));
+        SaleItem saleItem = transactionTemplate.execute(status -> CatalogFixtures.saleItems(em, 1, 1,
+                List.of(em.merge(seller)), List.of(CatalogFixtures.brand(em, "Bench"))).get(0));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("""
+                    INSERT INTO orders (customer_id, status, shippingAddress, orderNote, total_price, item_count,
+                                        createdOn, PaymentDate)
+                    SELECT ?, 'COMPLETED', CONCAT(X, ' Benchmark Road, Bangkok'), 'Leave at the door, please',
+                           1000, 1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+                    FROM SYSTEM_RANGE(1, ?)
+                    """, buyer.getId(), orders);
+            jdbcTemplate.update("""
+                    INSERT INTO order_items (order_id, sale_item_id, quantity, price_each, description)
+                    SELECT id, ?, 1, 1000, CONCAT('Bench Model ', id, ' (128GB Black)') FROM orders
+                    """, saleItem.getId());
+            jdbcTemplate.update("""
+                    INSERT INTO order_participant (order_id, account_id, role, createdOn)
+                    SELECT id, ?, 'SELLER', createdOn FROM orders
+                    """, seller.getId());
+        });
+        return seller;
+    }
+
+    /** Discards the export, counting lines and sampling the heap after a GC every few MB written. */
+    private static class HeapSamplingOutputStream extends OutputStream {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long baseline;
+        private long bytes;
+        private long lines;
+        private long nextSample = SAMPLE_EVERY_BYTES;
+        private long maxUsed;
+        private int samples;
+
+        HeapSamplingOutputStream() {
+            this.baseline = usedAfterGc();
+            this.maxUsed = baseline;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+            bytes += len;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_EVERY_BYTES;
+                maxUsed = Math.max(maxUsed, usedAfterGc());
+                samples++;
+            }
+        }
+
+        private long usedAfterGc() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.example.itbmshopbe.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.entities.Account;
+import org.example.itbmshopbe.entities.Order;
+import org.example.itbmshopbe.entities.OrderItem;
+import org.example.itbmshopbe.entities.OrderParticipant;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "orders.export.max-concurrent=1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(OrderExportService.class)
+class OrderExportServiceTest {
+    private static final String HEADER = "orderId,orderDate,paymentDate,orderStatus,buyerId,buyerName,"
+            + "shippingAddress,orderNote,orderItemId,saleItemId,description,quantity,priceEach,orderTotal";
+
+    @Autowired
+    private OrderExportService orderExportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManager em;
+
+    private Seller seller;
+    private Account buyer;
+    private Order firstOrder;
+    private Order secondOrder;
+
+    @BeforeEach
+    void seed() {
+        buyer = CatalogFixtures.account(em, "buyer", "BUYER");
+        seller = CatalogFixtures.seller(em, "seller");
+        Seller otherSeller = CatalogFixtures.seller(em, "other-seller");
+        List<SaleItem> items = CatalogFixtures.saleItems(em, 2, 10, List.of(seller),
+                List.of(CatalogFixtures.brand(em, "Apple")));
+        SaleItem otherItem = CatalogFixtures.saleItems(em, 1, 10, List.of(otherSeller),
+                List.of(CatalogFixtures.brand(em, "Samsung"))).get(0);
+
+        Instant now = Instant.now();
+        firstOrder = order(seller, now.minusSeconds(60), "12 Main Road\nBangkok", "=HYPERLINK(\"http://x\")",
+                line(items.get(0), 2, 1000, "Apple iPhone 15 (128GB, \"Black\")"),
+                line(items.get(1), 1, 500, "Apple iPhone 14 (64GB Blue)"));
+        secondOrder = order(seller, now, "99 Side Street", null,
+                line(items.get(0), 1, 1000, "-1 day deal"));
+        order(otherSeller, now, "1 Elsewhere", null,
+                line(otherItem, 1, 700, "Other seller phone"));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void csvQuotesFieldsAndNeutralizesFormulas() throws IOException {
+        String csv = export(OrderExportService.Format.CSV);
+
+        assertTrue(csv.startsWith(HEADER + "\r\n"));
+        assertTrue(csv.contains(",\"12 Main Road\nBangkok\",\"'=HYPERLINK(\"\"http://x\"\")\","));
+        assertTrue(csv.contains(",\"Apple iPhone 15 (128GB, \"\"Black\"\")\",2,1000,2500\r\n"));
+        assertTrue(csv.contains(",Apple iPhone 14 (64GB Blue),1,500,2500\r\n"));
+        assertTrue(csv.contains(",99 Side Street,,"));
+        assertTrue(csv.contains(",'-1 day deal,1,1000,1000\r\n"));
+        assertTrue(csv.contains(",COMPLETED," + buyer.getId() + ",buyer,"));
+        assertFalse(csv.contains("Other seller phone"));
+        assertTrue(csv.indexOf("Apple iPhone 14") < csv.indexOf("'-1 day deal"), "orders not in date order");
+        assertTrue(csv.endsWith("\r\n"));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLineWithRawValues() throws IOException {
+        String ndjson = export(OrderExportService.Format.NDJSON);
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(3, lines.length);
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : lines) {
+            rows.add(objectMapper.readTree(line));
+        }
+
+        JsonNode first = rows.get(0);
+        assertEquals(firstOrder.getId(), first.get("orderId").intValue());
+        assertEquals(buyer.getId(), first.get("buyerId").intValue());
+        assertEquals("buyer", first.get("buyerName").textValue());
+        assertEquals("COMPLETED", first.get("orderStatus").textValue());
+        assertEquals("12 Main Road\nBangkok", first.get("shippingAddress").textValue());
+        // JSON consumers do not evaluate formulas, so values are not rewritten
+        assertEquals("=HYPERLINK(\"http://x\")", first.get("orderNote").textValue());
+        assertEquals("Apple iPhone 15 (128GB, \"Black\")", first.get("description").textValue());
+        assertEquals(2, first.get("quantity").intValue());
+        assertEquals(2500, first.get("orderTotal").intValue());
+        assertNotNull(Instant.parse(first.get("orderDate").textValue()));
+
+        JsonNode last = rows.get(2);
+        assertEquals(secondOrder.getId(), last.get("orderId").intValue());
+        assertTrue(last.get("orderNote").isNull());
+        assertEquals("-1 day deal", last.get("description").textValue());
+    }
+
+    @Test
+    void exportIsRejectedWith503WhileTheOnlySlotIsTaken() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        StreamingResponseBody running = orderExportService.exportSellerOrders(seller.getId(), OrderExportService.Format.CSV);
+        CompletableFuture<Void> firstExport = CompletableFuture.runAsync(() -> {
+            try {
+                running.writeTo(slowClient);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try {
+            assertTrue(writing.await(10, TimeUnit.SECONDS), "first export never started writing");
+            StreamingResponseBody rejected = orderExportService.exportSellerOrders(seller.getId(), OrderExportService.Format.CSV);
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> rejected.writeTo(new ByteArrayOutputStream()));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        } finally {
+            release.countDown();
+        }
+        firstExport.get(10, TimeUnit.SECONDS);
+
+        // The slot is released once the first export finishes
+        assertTrue(export(OrderExportService.Format.CSV).startsWith(HEADER));
+    }
+
+    private String export(OrderExportService.Format format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        orderExportService.exportSellerOrders(seller.getId(), format).writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private Order order(Seller orderSeller, Instant createdOn, String shippingAddress, String note, OrderItem... lines) {
+        Order order = new Order();
+        order.setCustomer(buyer);
+        order.setStatus("COMPLETED");
+        order.setShippingAddress(shippingAddress);
+        order.setOrderNote(note);
+        int total = 0;
+        int count = 0;
+        for (OrderItem line : lines) {
+            total += line.getPriceEach() * line.getQuantity();
+            count += line.getQuantity();
+        }
+        order.setTotalPrice(total);
+        order.setItemCount(count);
+        em.persist(order);
+        for (OrderItem line : lines) {
+            line.setOrder(order);
+            em.persist(line);
+        }
+
+        OrderParticipant participant = new OrderParticipant();
+        participant.setOrder(order);
+        participant.setAccount(orderSeller.getAccount());
+        participant.setRole(OrderParticipant.Role.SELLER);
+        participant.setCreatedOn(createdOn);
+        em.persist(participant);
+        return order;
+    }
+
+    private static OrderItem line(SaleItem saleItem, int quantity, int priceEach, String description) {
+        OrderItem line = new OrderItem();
+        line.setSaleItem(saleItem);
+        line.setQuantity(quantity);
+        line.setPriceEach(priceEach);
+        line.setDescription(description);
+        return line;
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.itbmshopbe.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.dtos.OrderDTO.OrderItemRequestDto;
+import org.example.itbmshopbe.dtos.OrderDTO.OrderRequestDto;
+import org.example.itbmshopbe.entities.Account;
+import org.example.itbmshopbe.entities.Brand;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.example.itbmshopbe.support.SqlStatementCounter;
+import org.example.itbmshopbe.utils.EntityValidatorUtil;
+import org.example.itbmshopbe.utils.PagingUtil;
+import org.example.itbmshopbe.utils.ValidationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({OrderService.class, PagingUtil.class, ValidationUtil.class, EntityValidatorUtil.class})
+class OrderServiceQueryCountTest {
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private EntityManager em;
+
+    @MockBean
+    private CartSweeper cartSweeper;
+    @MockBean
+    private SellerStatsService sellerStatsService;
+    @MockBean
+    private StockReservationLedger stockReservationLedger;
+    @MockBean
+    private SaleItemDetailCache saleItemDetailCache;
+
+    private Account buyer;
+    private List<SaleItem> saleItems;
+
+    @BeforeEach
+    void seed() {
+        buyer = CatalogFixtures.account(em, "buyer", "BUYER");
+        List<Seller> sellers = List.of(
+                CatalogFixtures.seller(em, "seller-a"),
+                CatalogFixtures.seller(em, "seller-b"),
+                CatalogFixtures.seller(em, "seller-c"));
+        List<Brand> brands = List.of(
+                CatalogFixtures.brand(em, "Apple"),
+                CatalogFixtures.brand(em, "Samsung"));
+        saleItems = CatalogFixtures.saleItems(em, 30, 100, sellers, brands);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void checkoutSelectsDoNotGrowWithLineCount() {
+        long smallCart = selectsForCheckout(saleItems.subList(0, 5));
+        long largeCart = selectsForCheckout(saleItems.subList(5, 30));
+
+        assertEquals(smallCart, largeCart, () -> "statements: " + SqlStatementCounter.statements());
+    }
+
+    @Test
+    void checkoutLoadsSaleItemsInOneQuery() {
+        selectsForCheckout(saleItems);
+
+        assertEquals(1, SqlStatementCounter.selectsFrom("sale_item"),
+                () -> "statements: " + SqlStatementCounter.statements());
+        assertEquals(0, SqlStatementCounter.selectsFrom("seller"));
+        assertEquals(0, SqlStatementCounter.selectsFrom("brand"));
+    }
+
+    private long selectsForCheckout(List<SaleItem> items) {
+        OrderRequestDto request = new OrderRequestDto();
+        request.setBuyerId(buyer.getId());
+        request.setShippingAddress("1 Test Road");
+        request.setOrderItems(items.stream().map(item -> {
+            OrderItemRequestDto line = new OrderItemRequestDto();
+            line.setSaleItemId(item.getId());
+            line.setPrice(item.getPrice());
+            line.setQuantity(1);
+            return line;
+        }).toList());
+
+        SqlStatementCounter.reset();
+        orderService.createOrder(buyer.getId(), request);
+        em.flush();
+        em.clear();
+        return SqlStatementCounter.selects();
+    }
+}
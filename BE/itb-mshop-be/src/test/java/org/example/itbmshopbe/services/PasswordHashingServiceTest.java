@@ -0,0 +1,136 @@
+package org.example.itbmshopbe.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+    private static final long TIMEOUT_MS = 200;
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PasswordHashingService(passwordEncoder, meterRegistry);
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "timeoutMs", TIMEOUT_MS);
+        ReflectionTestUtils.setField(service, "rehashQueueCapacity", 1);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.stop();
+    }
+
+    @Test
+    void hashesOnThePool() {
+        when(passwordEncoder.encode("secret")).thenAnswer(invocation -> {
+            assertTrue(Thread.currentThread().getName().startsWith("password-hash-"));
+            return "{argon2}hash";
+        });
+
+        assertEquals("{argon2}hash", service.encode("secret"));
+    }
+
+    @Test
+    void fullQueueIsRejectedWith503() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        ReflectionTestUtils.setField(service, "timeoutMs", 10_000L);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> service.matches("a", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> service.matches("b", "hash"));
+        awaitQueued(1);
+
+        long start = System.nanoTime();
+        assertServiceUnavailable(() -> service.matches("c", "hash"));
+        // Rejected on submit, not after waiting for the timeout
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowHashTimesOutWith503AndIsInterrupted() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        });
+
+        long start = System.nanoTime();
+        assertServiceUnavailable(() -> service.matches("secret", "hash"));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs >= TIMEOUT_MS, "returned before the timeout: " + elapsedMs + " ms");
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "timed-out hash kept its pool thread");
+    }
+
+    @Test
+    void encoderFailureIsRethrownAsIs() {
+        IllegalArgumentException failure = new IllegalArgumentException("Invalid encoded password");
+        when(passwordEncoder.matches(anyString(), anyString())).thenThrow(failure);
+
+        assertSame(failure, assertThrows(IllegalArgumentException.class, () -> service.matches("secret", "hash")));
+    }
+
+    @Test
+    void backgroundRehashIsDroppedWhenItsQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "{argon2}hash";
+        });
+
+        assertTrue(service.encodeInBackground("first", hash -> { }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(service.encodeInBackground("second", hash -> { }));
+
+        assertFalse(service.encodeInBackground("third", hash -> { }));
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("password.hashing.queue").gauge().value() < expected) {
+            assertTrue(System.nanoTime() < deadline, "task was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void assertServiceUnavailable(Runnable call) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, call::run);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+    }
+}
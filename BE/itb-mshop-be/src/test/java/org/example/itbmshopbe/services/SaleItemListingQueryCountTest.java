@@ -0,0 +1,77 @@
+package org.example.itbmshopbe.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.dtos.SaleItemDTO.SaleItemPagedResponseDto;
+import org.example.itbmshopbe.entities.Brand;
+import org.example.itbmshopbe.entities.Seller;
+import org.example.itbmshopbe.support.CatalogFixtures;
+import org.example.itbmshopbe.support.SqlStatementCounter;
+import org.example.itbmshopbe.utils.SaleItemUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({SaleItemService.class, SaleItemUtil.class})
+class SaleItemListingQueryCountTest {
+    @Autowired
+    private SaleItemService saleItemService;
+    @Autowired
+    private EntityManager em;
+
+    @MockBean
+    private FileService fileService;
+    @MockBean
+    private BrandCache brandCache;
+    @MockBean
+    private StockReservationLedger stockReservationLedger;
+    @MockBean
+    private SaleItemDetailCache saleItemDetailCache;
+    @MockBean
+    private CartSweeper cartSweeper;
+
+    @BeforeEach
+    void seed() {
+        List<Seller> sellers = List.of(
+                CatalogFixtures.seller(em, "list-seller-a"),
+                CatalogFixtures.seller(em, "list-seller-b"),
+                CatalogFixtures.seller(em, "list-seller-c"));
+        List<Brand> brands = List.of(
+                CatalogFixtures.brand(em, "Apple"),
+                CatalogFixtures.brand(em, "Samsung"));
+        CatalogFixtures.saleItems(em, 60, 5, sellers, brands);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void listingPageIsOneContentQueryPlusCountWhateverThePageSize() throws Exception {
+        assertEquals(2, selectsForPage(5));
+        assertEquals(2, selectsForPage(50));
+    }
+
+    private long selectsForPage(int size) throws Exception {
+        SqlStatementCounter.reset();
+        SaleItemPagedResponseDto page = saleItemService.getAllSaleItemsPaginatedAndFiltered(
+                null, null, null, null, null, 0, size, "price", "asc", null, null);
+        page.getContent().forEach(item -> {
+            assertNotNull(item.getSellerName());
+            assertNotNull(item.getBrandName());
+        });
+        assertEquals(size, page.getContent().size());
+        em.clear();
+        return SqlStatementCounter.selects();
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.itbmshopbe.support;
+
+import jakarta.persistence.EntityManager;
+import org.example.itbmshopbe.entities.Account;
+import org.example.itbmshopbe.entities.Brand;
+import org.example.itbmshopbe.entities.SaleItem;
+import org.example.itbmshopbe.entities.Seller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CatalogFixtures {
+    private CatalogFixtures() {
+    }
+
+    public static Account account(EntityManager em, String nickname, String role) {
+        Account account = new Account();
+        account.setNickname(nickname);
+        account.setEmail(nickname + "@example.com");
+        account.setPassword("{noop}secret");
+        account.setFullname(nickname + " Fullname");
+        account.setRole(role);
+        account.setStatus(Account.Status.ACTIVE);
+        em.persist(account);
+        return account;
+    }
+
+    public static Seller seller(EntityManager em, String nickname) {
+        Seller seller = new Seller();
+        seller.setAccount(account(em, nickname, "SELLER"));
+        em.persist(seller);
+        return seller;
+    }
+
+    public static Brand brand(EntityManager em, String name) {
+        Brand brand = new Brand();
+        brand.setName(name);
+        brand.setIsActive(true);
+        em.persist(brand);
+        return brand;
+    }
+
+    // Items are dealt round-robin across the given sellers and brands
+    public static List<SaleItem> saleItems(EntityManager em, int count, int quantity,
+                                           List<Seller> sellers, List<Brand> brands) {
+        List<SaleItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SaleItem item = new SaleItem();
+            item.setBrand(brands.get(i % brands.size()));
+            item.setSeller(sellers.get(i % sellers.size()));
+            item.setModel("Model " + i);
+            item.setDescription("Description " + i);
+            item.setQuantity(quantity);
+            item.setPrice(1000 + i);
+            item.setStorageGb(128);
+            item.setColor("Black");
+            item.setDeleted(false);
+            em.persist(item);
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.itbmshopbe.utils;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenUtilTest {
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        String token = JwtTokenUtil.generateAccessToken(1, "buyer@example.com", "buyer", "BUYER", "ACTIVE");
+
+        JwtPrincipal first = JwtTokenUtil.getPrincipal(token);
+        JwtPrincipal second = JwtTokenUtil.getPrincipal(token);
+
+        // A re-verified token would yield a freshly built principal
+        assertSame(first, second);
+        assertEquals(new JwtPrincipal(1, "buyer@example.com", "buyer", "BUYER", "ACTIVE"), first);
+    }
+
+    @Test
+    void cachedPrincipalIsNotServedPastExpiry() {
+        Date now = new Date();
+        Date expiration = new Date(now.getTime() + 60_000);
+        String token = JwtTokenUtil.generateAccessToken(2, "seller@example.com", "seller", "SELLER", "ACTIVE",
+                now, expiration);
+
+        JwtPrincipal cached = JwtTokenUtil.getPrincipal(token, now.getTime());
+        assertSame(cached, JwtTokenUtil.getPrincipal(token, expiration.getTime() - 1));
+        assertNotSame(cached, JwtTokenUtil.getPrincipal(token, expiration.getTime()));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        Date issuedAt = new Date(System.currentTimeMillis() - 120_000);
+        String token = JwtTokenUtil.generateAccessToken(3, "old@example.com", "old", "BUYER", "ACTIVE",
+                issuedAt, new Date(issuedAt.getTime() + 60_000));
+
+        assertThrows(ExpiredJwtException.class, () -> JwtTokenUtil.getPrincipal(token));
+        assertThrows(ExpiredJwtException.class, () -> JwtTokenUtil.getPrincipal(token));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = JwtTokenUtil.generateAccessToken(4, "buyer@example.com", "buyer", "BUYER", "ACTIVE");
+        String[] parts = token.split("\\.");
+        String forged = JwtTokenUtil.generateAccessToken(4, "buyer@example.com", "buyer", "SELLER", "ACTIVE")
+                .split("\\.")[1];
+
+        assertThrows(JwtException.class, () -> JwtTokenUtil.getPrincipal(parts[0] + "." + forged + "." + parts[2]));
+    }
+
+    @Test
+    void validateTokenReturnsAFreshClaimsInstance() {
+        String token = JwtTokenUtil.generateAccessToken(5, "buyer@example.com", "buyer", "BUYER", "ACTIVE");
+
+        JwtTokenUtil.validateToken(token).put("role", "SELLER");
+
+        assertEquals("BUYER", JwtTokenUtil.validateToken(token).get("role"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.itbmshopbe.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int CALLERS = 32;
+
+    @Test
+    void parallelCallersShareOneLoad() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> singleFlight.execute(1, () -> {
+            loaderCalls.incrementAndGet();
+            await(releaseLoad);
+            return "detail-1";
+        }));
+        waitUntil(() -> singleFlight.sharedCount() == CALLERS - 1);
+        releaseLoad.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("detail-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, singleFlight.loadCount());
+        assertEquals(CALLERS - 1, singleFlight.sharedCount());
+    }
+
+    @Test
+    void waitersSeeTheLoaderFailure() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> singleFlight.execute(1, () -> {
+            await(releaseLoad);
+            throw new IllegalStateException("database down");
+        }));
+        waitUntil(() -> singleFlight.sharedCount() == CALLERS - 1);
+        releaseLoad.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals(1, singleFlight.loadCount());
+    }
+
+    @Test
+    void cacheMissesCoalesceAndLaterCallsHit() throws Exception {
+        TtlCache<Integer, String> cache = new TtlCache<>(Duration.ofMinutes(1), 100);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> cache.getOrLoad(7, () -> {
+            loaderCalls.incrementAndGet();
+            await(releaseLoad);
+            return "brand-7";
+        }));
+        waitUntil(() -> cache.sharedLoadCount() == CALLERS - 1);
+        releaseLoad.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("brand-7", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("brand-7", cache.getOrLoad(7, () -> fail("should be cached")));
+        assertEquals(1, loaderCalls.get());
+    }
+
+    private static List<Future<String>> runConcurrently(Callable<String> call) {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for callers to coalesce");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.itbmshopbe.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlCacheTest {
+
+    @Test
+    void invalidatingAnotherKeyDuringLoadStillCaches() {
+        TtlCache<Integer, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+
+        String loaded = cache.getOrLoad(1, () -> {
+            cache.invalidate(2);
+            return "detail-1";
+        });
+
+        assertEquals("detail-1", loaded);
+        assertEquals("detail-1", cache.get(1));
+    }
+
+    @Test
+    void invalidatingTheSameKeyDuringLoadSkipsCaching() {
+        TtlCache<Integer, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+
+        String loaded = cache.getOrLoad(1, () -> {
+            cache.invalidate(1);
+            return "stale-1";
+        });
+
+        assertEquals("stale-1", loaded);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void invalidateAllDuringLoadSkipsCaching() {
+        TtlCache<Integer, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+
+        cache.getOrLoad(1, () -> {
+            cache.invalidateAll();
+            return "stale-1";
+        });
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void cachedValueIsServedWithoutReloading() {
+        TtlCache<Integer, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        cache.getOrLoad(1, () -> "detail-" + loaderCalls.incrementAndGet());
+        cache.getOrLoad(1, () -> "detail-" + loaderCalls.incrementAndGet());
+
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, cache.hitCount());
+    }
+}
@@ -374,7 +374,7 @@ export function useCart() {
         sellerName: product.sellerName,
         selected: false,
         image: product.saleItemImages?.[0]?.fileName 
-          ? `${import.meta.env.VITE_APP_URL}/sale-items/picture/${product.saleItemImages[0].fileName}`
+          ? `${import.meta.env.VITE_APP_URL}/sale-items/picture/${product.saleItemImages[0].fileName}?size=thumbnail`
           : null,
         brandName: product.brandName,
         color: product.color,
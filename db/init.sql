@@ -305,3 +305,125 @@ ADD COLUMN deleted_at TIMESTAMP;
 
 CREATE INDEX idx_sale_item_deleted ON sale_item(deleted);
 
+
+-- Full-text index for keyword search (SaleItemSpecifications.fullTextKeyword)
+ALTER TABLE sale_item
+ADD FULLTEXT INDEX ft_sale_item_search (model, description, color);
+
+-- Set when the thumbnail/card/detail derivatives of a picture have been generated
+ALTER TABLE sale_item_picture
+ADD COLUMN derivatives_created_on DATETIME NULL;
+
+-- Table: picture_blob
+-- Content-addressed picture files, shared by every sale_item_picture with the same bytes.
+CREATE TABLE IF NOT EXISTS picture_blob (
+    digest CHAR(64) PRIMARY KEY,            -- SHA-256 of the file, hex
+    file_name VARCHAR(80) NOT NULL,         -- <digest>.<ext> as served by the picture endpoint
+    size_bytes BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 1,       -- number of sale_item_picture rows using the blob
+    createdOn DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+) CHARACTER SET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE sale_item_picture
+ADD COLUMN blob_digest CHAR(64) NULL;
+
+CREATE INDEX idx_sale_item_picture_blob ON sale_item_picture(blob_digest);
+
+-- Table: email_outbox
+-- Emails queued in the same transaction as the change that triggers them and
+-- sent in batches by the background dispatcher.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient VARCHAR(100) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    html_body MEDIUMTEXT NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING', -- PENDING, SENT, FAILED
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(500),
+    createdOn DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at DATETIME(6),
+
+    INDEX idx_email_outbox_due (status, next_attempt_at)
+) CHARACTER SET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: order_participant
+-- Buyer and seller of every order, so order history pages by account without
+-- joining through order_items. Filled at checkout; older orders are backfilled on startup.
+CREATE TABLE IF NOT EXISTS order_participant (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id INT NOT NULL,
+    account_id INT NOT NULL,
+    role VARCHAR(10) NOT NULL,              -- BUYER, SELLER
+    createdOn DATETIME(6) NOT NULL,         -- copy of orders.createdOn
+
+    UNIQUE KEY uk_order_participant (order_id, account_id, role),
+    INDEX idx_order_participant_account (account_id, createdOn, order_id),
+    CONSTRAINT fk_order_participant_order FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE,
+    CONSTRAINT fk_order_participant_account FOREIGN KEY (account_id) REFERENCES account(id) ON DELETE CASCADE
+) CHARACTER SET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Checkout snapshots read by the order history listings
+ALTER TABLE order_items
+ADD COLUMN description VARCHAR(255) NULL,
+ADD COLUMN brand_name VARCHAR(100) NULL,
+ADD COLUMN seller_id INT NULL,
+ADD COLUMN seller_nickname VARCHAR(50) NULL;
+
+ALTER TABLE orders
+ADD COLUMN total_price INT NULL,
+ADD COLUMN item_count INT NULL;
+
+-- Rows from before these columns are filled by OrderSnapshotBackfill at application startup
+
+-- Seller sales rollups, incremented in the checkout transaction for completed orders
+CREATE TABLE IF NOT EXISTS seller_sales_daily (
+    seller_id INT NOT NULL,
+    sales_date DATE NOT NULL,
+    order_count INT NOT NULL,
+    units INT NOT NULL,
+    revenue BIGINT NOT NULL,
+    PRIMARY KEY (seller_id, sales_date)
+);
+
+CREATE TABLE IF NOT EXISTS seller_item_sales_daily (
+    seller_id INT NOT NULL,
+    sales_date DATE NOT NULL,
+    sale_item_id INT NOT NULL,
+    order_count INT NOT NULL,
+    units INT NOT NULL,
+    revenue BIGINT NOT NULL,
+    PRIMARY KEY (seller_id, sales_date, sale_item_id)
+);
+
+-- Backfill from existing completed orders (days in UTC, matching seller.stats.time-zone)
+INSERT IGNORE INTO seller_item_sales_daily (seller_id, sales_date, sale_item_id, order_count, units, revenue)
+SELECT s.seller_id, DATE(o.createdOn), oi.sale_item_id, COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.quantity * oi.price_each)
+FROM orders o
+JOIN order_items oi ON oi.order_id = o.id
+JOIN sale_item s ON s.id = oi.sale_item_id
+WHERE o.status = 'COMPLETED'
+GROUP BY s.seller_id, DATE(o.createdOn), oi.sale_item_id;
+
+INSERT IGNORE INTO seller_sales_daily (seller_id, sales_date, order_count, units, revenue)
+SELECT s.seller_id, DATE(o.createdOn), COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.quantity * oi.price_each)
+FROM orders o
+JOIN order_items oi ON oi.order_id = o.id
+JOIN sale_item s ON s.id = oi.sale_item_id
+WHERE o.status = 'COMPLETED'
+GROUP BY s.seller_id, DATE(o.createdOn);
+
+-- Table: idempotency_key
+-- Stored outcome of POST /v2/orders requests sent with an Idempotency-Key header.
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    key_hash CHAR(64) PRIMARY KEY,          -- SHA-256 of account id + client key
+    account_id INT NOT NULL,
+    request_hash CHAR(64) NOT NULL,         -- SHA-256 of the request body
+    status VARCHAR(12) NOT NULL,            -- IN_PROGRESS, COMPLETED
+    response_body MEDIUMTEXT,
+    claimed_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    createdOn DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_idempotency_key_expires (expires_at)
+) CHARACTER SET=utf8mb4 COLLATE=utf8mb4_unicode_ci;